@@ -18,10 +18,10 @@ package io.moderne.connect.commands;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.moderne.connect.http.Authenticator;
+import io.moderne.connect.http.HttpTransport;
 import io.moderne.connect.utils.TextBlock;
-import kong.unirest.HeaderNames;
 import kong.unirest.HttpResponse;
-import kong.unirest.Unirest;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import picocli.CommandLine;
@@ -383,28 +383,34 @@ public class GitHub implements Callable<Integer> {
     }
 
     private void commitFiles() throws IOException {
-        HttpResponse<String> response = Unirest.post(apiURL + "/graphql")
-                .header(HeaderNames.AUTHORIZATION, "Bearer " + accessToken)
-                .body(String.format(TextBlock.textBlock("cli/github/createRepo.json.template"),
-                        repository, branch,
-                        toBase64(String.format(toString(MODERNE_DISPATCH_INGEST_WORKFLOW),
-                                repoReadSecretName, cliVersion, publishUrl, publishUserSecretName, publishPwdSecretName)),
-                        toBase64(String.format(toString(MODERNE_MASS_INGEST_WORKFLOW), apiURL, repository, dispatchSecretName)),
-                        fromResourcetoBase64(),
-                        toBase64(new String(Files.readAllBytes(source.csvFile))),
-                        lastCommit())).asString();
-
-        if (!response.isSuccess()) {
-            throw new RuntimeException(String.format("[ERROR] The commit in %s to submit Moderne workflows failed with error code %s. Message: %s",
-                    repository, response.getStatus(), response.getBody()));
+        // Both requests go to the same host, so they share one connection
+        try (HttpTransport transport = HttpTransport.builder()
+                .authenticator(Authenticator.bearer(accessToken))
+                .maxConnections(1)
+                .build()) {
+            String commit = String.format(TextBlock.textBlock("cli/github/createRepo.json.template"),
+                    repository, branch,
+                    toBase64(String.format(toString(MODERNE_DISPATCH_INGEST_WORKFLOW),
+                            repoReadSecretName, cliVersion, publishUrl, publishUserSecretName, publishPwdSecretName)),
+                    toBase64(String.format(toString(MODERNE_MASS_INGEST_WORKFLOW), apiURL, repository, dispatchSecretName)),
+                    fromResourcetoBase64(),
+                    toBase64(new String(Files.readAllBytes(source.csvFile))),
+                    lastCommit(transport));
+            HttpResponse<String> response = transport.execute(() -> transport.post(apiURL + "/graphql")
+                    .body(commit), false);
+
+            if (!response.isSuccess()) {
+                throw new RuntimeException(String.format("[ERROR] The commit in %s to submit Moderne workflows failed with error code %s. Message: %s",
+                        repository, response.getStatus(), response.getBody()));
+            }
         }
     }
 
-    private String lastCommit() throws JsonProcessingException {
+    private String lastCommit(HttpTransport transport) throws JsonProcessingException {
         String[] slug = repository.split("/");
-        HttpResponse<String> lastCommitResponse = Unirest.post(apiURL + "/graphql")
-                .header(HeaderNames.AUTHORIZATION, "Bearer " + accessToken)
-                .body(String.format(TextBlock.textBlock("cli/github/last_commit.json.template"), slug[1], slug[0], branch)).asString();
+        // A query, so it can safely be repeated
+        HttpResponse<String> lastCommitResponse = transport.execute(() -> transport.post(apiURL + "/graphql")
+                .body(String.format(TextBlock.textBlock("cli/github/last_commit.json.template"), slug[1], slug[0], branch)), true);
 
         if (!lastCommitResponse.isSuccess()) {
             throw new RuntimeException(
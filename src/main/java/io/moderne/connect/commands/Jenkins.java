@@ -18,19 +18,45 @@ package io.moderne.connect.commands;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.moderne.connect.http.AdaptiveLimiter;
+import io.moderne.connect.http.CircuitBreaker;
+import io.moderne.connect.http.HttpTransport;
+import io.moderne.connect.http.RateLimiter;
+import io.moderne.connect.http.RetryPolicy;
+import io.moderne.connect.jenkins.CheckpointJournal;
+import io.moderne.connect.jenkins.CloneOptions;
+import io.moderne.connect.jenkins.CrumbCache;
+import io.moderne.connect.jenkins.FolderInventory;
+import io.moderne.connect.jenkins.FolderManager;
+import io.moderne.connect.jenkins.JenkinsAuthenticator;
+import io.moderne.connect.jenkins.JobDslExport;
+import io.moderne.connect.jenkins.JobFingerprint;
+import io.moderne.connect.jenkins.JobPlan;
+import io.moderne.connect.jenkins.JobShards;
+import io.moderne.connect.jenkins.PluginCache;
+import io.moderne.connect.jenkins.ScriptConsoleBatch;
+import io.moderne.connect.jenkins.StateManifest;
+import io.moderne.connect.utils.CompletionWindow;
 import io.moderne.connect.utils.TextBlock;
+import io.moderne.connect.utils.WorkerExecutors;
 import kong.unirest.*;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import picocli.CommandLine;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -54,14 +80,19 @@ import java.util.stream.Stream;
                       "     --publishCredsId artifactory \\\n" +
                       "     --publishUrl https://artifact-place.com/artifactory/moderne-ingest",
         footer = "If you are a CloudBees CI authenticated user, you will also need these permissions:\n\n" +
-                 "1. Overall/System Read access. This is needed to get the list of plugins and their versions.\n" +
+                 "1. Overall/System Read access. This is needed to get the list of plugins and their versions, " +
+                 "unless they are provided with --pluginVersions.\n" +
                  "    - GET /pluginManager/api/json\n\n" +
                  "2. Create, Configure, Read folders and Jobs.\n" +
                  "    - POST /createItem\n" +
                  "    - GET  /job/$folder/api/json\n" +
-                 "    - GET  /job/$folder/job/$item/api/json\n\n" +
-                 "3. (Optionally) Delete jobs. This is only required if --deleteSkipped is selected.\n" +
-                 "    - POST /job/$folder/job/$item/doDelete\n\n" +
+                 "    - POST /job/$folder/createItem\n" +
+                 "    - POST /job/$folder/job/$item/config.xml\n\n" +
+                 "3. (Optionally) Delete or disable jobs. This is only required if --deleteSkipped or --pruneOrphans is selected.\n" +
+                 "    - POST /job/$folder/job/$item/doDelete\n" +
+                 "    - POST /job/$folder/job/$item/disable\n\n" +
+                 "4. (Optionally) Overall/Administer access. This is only required if --bulkBatchSize or --managedScript is selected.\n" +
+                 "    - POST /scriptText\n\n" +
                  "For more details around these permissions, please see: https://cutt.ly/75J0mtI")
 // The CloudBees docs for permissions are https://docs.cloudbees.com/docs/cloudbees-ci/latest/cloud-secure-guide/delegating-administration-modern#_overallsystem_read
 public class Jenkins implements Callable<Integer> {
@@ -70,9 +101,8 @@ public class Jenkins implements Callable<Integer> {
      * Required Parameters
      **/
     @CommandLine.Option(names = "--controllerUrl",
-            required = true,
             description = "The URL of the Jenkins controller that will create the jobs. Typically this is the URL " +
-                          "of your Jenkins instance.\n\n" +
+                          "of your Jenkins instance. Not needed with --exportTo, and only read from with --plan.\n\n" +
                           "@|bold Example|@: https://jenkins.company-name.com\n")
     String controllerUrl;
 
@@ -135,8 +165,8 @@ public class Jenkins implements Callable<Integer> {
             description = "The ID of the Jenkins credentials needed to clone the provided list of repositories.\n")
     String gitCredsId;
 
-    @CommandLine.Option(names = "--jenkinsUser", required = true,
-            description = "The Jenkins user that will be used to create the Jenkins Jobs.\n")
+    @CommandLine.Option(names = "--jenkinsUser",
+            description = "The Jenkins user that will be used to create the Jenkins Jobs. Not needed with --exportTo or --plan.\n")
     String jenkinsUser;
 
     @CommandLine.Option(names = "--publishCredsId", required = true,
@@ -155,10 +185,44 @@ public class Jenkins implements Callable<Integer> {
             description = "An expression to match the Jenkins agent that will run the job.\n")
     String agent;
 
+    @CommandLine.Option(names = "--bulkBatchSize", defaultValue = "0",
+            description = "If greater than 0, jobs are created and updated in batches of this size, each applied with a " +
+                          "single request to the script console instead of one request per job. This requires " +
+                          "Overall/Administer permission.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int bulkBatchSize;
+
+    @CommandLine.Option(names = "--checkpoint",
+            description = "A file where each job is recorded once it has been applied, together with its CSV line " +
+                          "and a hash of its configuration. With --resume, the jobs it records are not applied again.\n")
+    Path checkpoint;
+
     @CommandLine.Option(names = "--cliVersion", defaultValue = "v2.0.5",
             description = "The version of the Moderne CLI that should be used when running Jenkins Jobs.\n")
     String cliVersion;
 
+    @CommandLine.Option(names = "--cloneDepth", defaultValue = "0",
+            description = "If greater than 0, repositories are cloned shallowly with a history truncated to this " +
+                          "number of commits.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int cloneDepth;
+
+    @CommandLine.Option(names = "--cloneHonorRefspec", defaultValue = "false",
+            description = "If enabled, only the branch of the job is fetched on the initial clone, through a " +
+                          "refspec narrowed to that branch.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean cloneHonorRefspec;
+
+    @CommandLine.Option(names = "--cloneNoTags", defaultValue = "false",
+            description = "If enabled, tags are not fetched when cloning repositories.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean cloneNoTags;
+
+    @CommandLine.Option(names = "--cloneReference",
+            description = "The path of a reference repository on the agents, whose objects are borrowed instead of " +
+                          "being downloaded again when cloning.\n")
+    String cloneReference;
+
     @CommandLine.Option(names = "--commandSuffix", defaultValue = "",
             description = "The suffix that should be appended to the Moderne CLI command when running Jenkins Jobs.\n\n" +
                           "@|bold Example|@: --dry-run\n")
@@ -182,6 +246,19 @@ public class Jenkins implements Callable<Integer> {
                           "@|bold Default|@: ${DEFAULT-VALUE}\n")
     boolean downloadCLI;
 
+    @CommandLine.Option(names = "--downloadCLICache",
+            description = "A directory on the agents where the downloaded CLI is cached, per CLI version and download " +
+                          "URL, and shared by all the builds of the agent. The CLI is only downloaded when it is " +
+                          "missing from the cache or does not match its recorded checksum, and is moved into place " +
+                          "atomically so that concurrent builds never see a partial download.\n\n" +
+                          "@|bold Example|@: $HOME/.moderne/cli\n")
+    String downloadCLICache;
+
+    @CommandLine.Option(names = "--downloadCLISha256",
+            description = "The expected SHA-256 checksum of the CLI. A cached or downloaded CLI that does not match it " +
+                          "is rejected. Requires --downloadCLICache.\n")
+    String downloadCLISha256;
+
     @CommandLine.Option(names = "--downloadCLIUrl",
             description = "Specifies an internal URL to download the CLI from if you'd prefer to host the CLI yourself.\n")
     String downloadCLIUrl;
@@ -190,29 +267,155 @@ public class Jenkins implements Callable<Integer> {
             description = "Specifies the Jenkins credentials Id to download the CLI if you host the CLI yourself.\n")
     String downloadCLICreds;
 
+    @CommandLine.Option(names = "--exportTo",
+            description = "Writes the jobs to this file instead of creating them through the Jenkins REST API. The " +
+                          "file is a Job DSL script, or a Jenkins Configuration as Code file wrapping that script if " +
+                          "its name ends in .yml or .yaml. Requires --pluginVersions, as the controller is not " +
+                          "contacted.\n")
+    Path exportTo;
+
     @CommandLine.Option(names = "--folder",
-            description = "The Jenkins folder that will store the created jobs. This folder will be created if it does not exist.\n\n" +
+            description = "The Jenkins folder that will store the created jobs. This folder will be created if it does not exist. " +
+                          "Nested folders are separated by slashes, such as parent/child.\n\n" +
                           "@|bold Default|@: ${DEFAULT-VALUE}\n",
             defaultValue = "moderne-ingest")
     String folder;
 
+    @CommandLine.Option(names = "--fuseScriptSteps", defaultValue = "false",
+            description = "If enabled, the consecutive shell or PowerShell steps of each job, such as the download, " +
+                          "configuration, build and publish, run as a single build step that stops at the first " +
+                          "failing phase and logs a marker as each phase starts. This saves starting a new shell, " +
+                          "which is slow for PowerShell, for every step.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean fuseScriptSteps;
+
+    @CommandLine.Option(names = "--managedScript",
+            description = "The ID of a Config File Provider managed file that holds the download, configuration, build " +
+                          "and publish commands shared by every ingestion job. The file is created or updated on each " +
+                          "run, and jobs only pass their own parameters to it, so changes such as a new --cliVersion " +
+                          "do not require updating every job. Requires Overall/Administer permission and is not " +
+                          "supported on windows agents.\n")
+    String managedScript;
+
     @CommandLine.Option(names = "--mavenSettingsConfigFileId",
             description = "The ID of the Jenkins Maven settings config file that will be used to configure Maven builds. " +
                           "Specified in the Jenkins Global Tool Configuration page:\n" +
                           "    {controllerUrl}/manage/configureTools/\n")
     String mavenSettingsConfigFileId;
 
+    @CommandLine.Option(names = "--maxConcurrency", defaultValue = "50",
+            description = "The maximum number of requests that can be in flight against the Jenkins controller. The " +
+                          "actual number starts at half of this value and adapts between --minConcurrency and this " +
+                          "value depending on how fast the controller responds, and is reduced whenever it reports " +
+                          "being overloaded.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int maxConcurrency;
+
+    @CommandLine.Option(names = "--maxRetries", defaultValue = "3",
+            description = "The number of times a request that can safely be repeated is retried when the Jenkins " +
+                          "controller is unreachable or temporarily unavailable. Retries are spaced out with an " +
+                          "exponential, randomized backoff.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int maxRetries;
+
+    @CommandLine.Option(names = "--maxPrunes", defaultValue = "100",
+            description = "The maximum number of jobs that --pruneOrphans may delete or disable in a single run. If " +
+                          "more jobs are missing from the CSV file, none of them are pruned, which protects against " +
+                          "an incomplete or wrong CSV file.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int maxPrunes;
+
+    @CommandLine.Option(names = "--maxRequestsPerSecond", defaultValue = "0",
+            description = "A hard limit on the number of requests per second sent to the Jenkins controller, " +
+                          "regardless of how well it responds. Zero means no limit.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    double maxRequestsPerSecond;
+
+    @CommandLine.Option(names = "--minConcurrency", defaultValue = "2",
+            description = "The number of requests that can always be in flight against the Jenkins controller, even " +
+                          "when it reports being overloaded.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int minConcurrency;
+
+    @CommandLine.Option(names = "--orchestrator", defaultValue = "false",
+            description = "If enabled, a single pipeline job named " + ORCHESTRATOR_JOB + " is created in --folder " +
+                          "instead of one job per repository. The pipeline ingests the repositories listed in its " +
+                          "REPOSITORIES parameter, each in its own stage, a bounded number at a time.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean orchestrator;
+
+    @CommandLine.Option(names = "--orchestratorParallelism", defaultValue = "10",
+            description = "The number of repositories the --orchestrator pipeline ingests at the same time.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int orchestratorParallelism;
+
+    @CommandLine.Option(names = "--plan",
+            description = "Renders the jobs into this directory instead of sending them to the Jenkins controller, " +
+                          "which is never changed. Each config.xml is written to <folder>/<job>/config.xml, and " +
+                          "plan.txt lists the jobs and folders that would be created, updated, deleted or disabled. " +
+                          "When --controllerUrl is given, the jobs that the controller holds are listed from it with " +
+                          "read-only requests. Otherwise --pluginVersions is required.\n")
+    Path plan;
+
+    @CommandLine.Option(names = "--planInventory",
+            description = "The inventory.tsv written by a previous --plan, describing the jobs that the controller " +
+                          "already holds, so that the controller is not contacted. Without it or --controllerUrl, " +
+                          "every job is planned as created.\n")
+    Path planInventory;
+
+    @CommandLine.Option(names = "--pluginCacheTtl", defaultValue = "0",
+            description = "The number of minutes the list of Jenkins plugins is cached for, per controller, in " +
+                          "~/.moderne/connect, so that repeated runs against the same controller do not request it " +
+                          "again. Caching is disabled when 0.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int pluginCacheTtl;
+
+    @CommandLine.Option(names = "--pluginVersions",
+            description = "A JSON file listing the plugins installed in the Jenkins controller, in the format returned by " +
+                          "{controllerUrl}/pluginManager/api/json?tree=plugins[shortName,version,active]. When " +
+                          "specified, the controller is not asked for its plugins.\n")
+    Path pluginVersions;
+
     @CommandLine.Option(names = "--platform",
             description = "The OS platform for the Jenkins node/agent. The possible options are: windows, linux, or macos.\n\n" +
                           "@|bold Default|@: ${DEFAULT-VALUE}\n",
             defaultValue = "linux")
     String platform;
 
+    @CommandLine.Option(names = "--pollScm", defaultValue = "false",
+            description = "If enabled, the jobs poll their repository on the --scheduledAt schedule instead of " +
+                          "building unconditionally, and only build when the head of the branch differs from the " +
+                          "commit of their last build. Polling only lists the remote refs, without an agent or " +
+                          "a workspace. A failed build is not retried until a new commit is pushed or it is " +
+                          "started by hand.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean pollScm;
+
     @CommandLine.Option(names = "--prefix",
             description = "If specified, Jenkins Jobs will only be created for repositories that start with this prefix.\n",
             defaultValue = "")
     String prefix;
 
+    @CommandLine.Option(names = "--pruneOrphans", defaultValue = "none",
+            description = "What to do with the jobs of --folder and its subfolders that no longer correspond to a row " +
+                          "of the CSV file. The possible options are: none; delete; or disable. With --createValidateJobs, " +
+                          "the validate jobs of those repositories are pruned too, while the validate jobs of other " +
+                          "folders are kept. Jobs of rows marked as skipped are kept unless --deleteSkipped is set, and " +
+                          "with --prefix only jobs matching the prefix are pruned.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    String pruneOrphans;
+
+    @CommandLine.Option(names = "--readTimeout", defaultValue = "60",
+            description = "The number of seconds to wait for the Jenkins controller to respond to a request.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int readTimeout;
+
+    @CommandLine.Option(names = "--resume", defaultValue = "false",
+            description = "Resumes an interrupted run from its --checkpoint, skipping the jobs whose CSV line and " +
+                          "configuration are unchanged since they were applied.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean resume;
+
     @CommandLine.Option(names = "--scheduledAt", defaultValue = "H H * * *",
             description = "The cron schedule that the Jenkins Jobs should follow. By default, Jenkins will execute " +
                           "each job once a day while making sure to space them out so that the system is not overloaded at " +
@@ -220,18 +423,58 @@ public class Jenkins implements Callable<Integer> {
                           "@|bold Default|@: ${DEFAULT-VALUE}\n")
     String scheduledAt;
 
+    @CommandLine.Option(names = "--shardBy", defaultValue = "none",
+            description = "Places each job in a subfolder of --folder, so that very large numbers of jobs are not " +
+                          "kept in a single folder. The possible options are: none; org, one subfolder per " +
+                          "organization; or hash, a fixed number of subfolders given by --shards. Subfolders are " +
+                          "created as needed.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    String shardBy;
+
+    @CommandLine.Option(names = "--shards", defaultValue = "16",
+            description = "The number of subfolders jobs are spread over with --shardBy hash. A job always lands in " +
+                          "the same subfolder as long as this number does not change.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int shards;
+
     @CommandLine.Option(names = "--skipSSL",
             defaultValue = "false",
             description = "If this parameter is included, SSL verification will be skipped on the generated jobs.\n\n" +
                           "@|bold Default|@: ${DEFAULT-VALUE}\n")
     boolean skipSSL;
 
+    @CommandLine.Option(names = "--skipUnchanged", defaultValue = "false",
+            description = "If enabled, a fingerprint of the generated configuration is recorded in the description of " +
+                          "each job, and jobs whose configuration did not change since the last run are not updated.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean skipUnchanged;
+
+    @CommandLine.Option(names = "--stateManifest",
+            description = "A file recording the hash of each job's rendered configuration as of the last run. Jobs " +
+                          "whose configuration is unchanged are not sent to the controller again, so only added " +
+                          "and changed rows, or rows affected by a changed option such as --cliVersion, cost " +
+                          "requests. Changes made to jobs directly in Jenkins are not detected. With --plan, the " +
+                          "file is only read, so that planned jobs are still applied by the next run.\n")
+    Path stateManifest;
+
+    @CommandLine.Option(names = "--connectTimeout", defaultValue = "10",
+            description = "The number of seconds to wait for a connection to the Jenkins controller.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    int connectTimeout;
+
     @CommandLine.Option(names = "--createValidateJobs",
             defaultValue = "false",
             description = "(Incubating) If supplied validate jobs will be created for each repository.\n")
     boolean createValidateJobs;
 
-    @CommandLine.ArgGroup(multiplicity = "1")
+    @CommandLine.Option(names = "--validateJobPerHost",
+            defaultValue = "false",
+            description = "(Incubating) Create a single validate job per SCM host and build tool instead of one per " +
+                          "repository. The repository, branch and JDK are then passed as the gitUrl, branch and " +
+                          "jdkTool build parameters. Requires --createValidateJobs.\n")
+    boolean validateJobPerHost;
+
+    @CommandLine.ArgGroup(multiplicity = "0..1")
     UserSecret userSecret;
 
     @CommandLine.Option(names = "--verbose", defaultValue = "false",
@@ -239,6 +482,21 @@ public class Jenkins implements Callable<Integer> {
                           "\n@|bold Default|@: ${DEFAULT-VALUE}\n")
     boolean verbose;
 
+    @CommandLine.Option(names = "--virtualThreads", defaultValue = "true",
+            description = "When running on Java 21 or later, send requests to the Jenkins controller from virtual " +
+                          "threads rather than from a pool of --maxConcurrency platform threads. This makes a high " +
+                          "--maxConcurrency cheap. Ignored on older Java versions.\n\n" +
+                          "@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean virtualThreads;
+
+    @CommandLine.Option(names = "--incrementalWorkspace", defaultValue = "false",
+            description = "If enabled, use the WsCleanup plugin to delete only the LST build output and logs of the CLI after " +
+                          "finishing the job, keeping the Git checkout and build tool caches so that the next build " +
+                          "only fetches what changed. Validate jobs still clean their whole workspace, since a patch " +
+                          "is applied to it. Can not be combined with --workspaceCleanup.\n" +
+                          "\n@|bold Default|@: ${DEFAULT-VALUE}\n")
+    boolean incrementalWorkspace;
+
     @CommandLine.Option(names = "--workspaceCleanup", defaultValue = "false",
             description = "If enabled, use the WsCleanup plugin to clean the workspace after finishing the job.\n" +
                           "\n@|bold Default|@: ${DEFAULT-VALUE}\n")
@@ -284,7 +542,7 @@ public class Jenkins implements Callable<Integer> {
                       "CREDENTIALS_ID=USERNAME_VARIABLE:PASSWORD_VARIABLE for UsernamePasswordMultiBinding")
     Map<String, String> extraCredentials;
 
-    static final String JENKINS_CRUMB_HEADER = "Jenkins-Crumb";
+    static final String JENKINS_CRUMB_HEADER = JenkinsAuthenticator.CRUMB_HEADER;
 
     private static final String PLATFORM_WINDOWS = "windows";
     private static final String CLOUDBEES_FOLDER_PLUGIN = "cloudbees-folder";
@@ -294,6 +552,8 @@ public class Jenkins implements Callable<Integer> {
     private static final String CREDENTIALS_PLUGIN = "credentials-binding";
     private static final String CONFIG_FILE_PLUGIN = "config-file-provider";
     private static final String POWERSHELL_PLUGIN = "powershell";
+    private static final String WORKFLOW_JOB_PLUGIN = "workflow-job";
+    private static final String WORKFLOW_CPS_PLUGIN = "workflow-cps";
     private static final Set<String> REQUIRED_PLUGINS = Stream.of(
             CLOUDBEES_FOLDER_PLUGIN, GIT_PLUGIN, CREDENTIALS_PLUGIN
     ).collect(Collectors.toSet());
@@ -301,10 +561,44 @@ public class Jenkins implements Callable<Integer> {
             GRADLE_PLUGIN, POWERSHELL_PLUGIN
     ).collect(Collectors.toSet());
 
+    private static final String VALIDATE_FOLDER = "validate";
+    private static final String CLONE_OPTIONS_COLUMN = "cloneOptions";
+    // The LST build output and logs of the CLI, leaving the checkout and any build tool caches in place
+    private static final String[] INCREMENTAL_CLEANUP_PATTERNS = {".moderne/build/**"};
+    private static final String GIT_URL_PARAMETER = "gitUrl";
+    private static final String BRANCH_PARAMETER = "branch";
+    private static final String JDK_PARAMETER = "jdkTool";
+    private static final String MANAGED_SCRIPT_NAME = "mod-connect ingestion script";
+    private static final String MANAGED_SCRIPT_VARIABLE = "MODERNE_INGEST_SCRIPT";
+    static final String ORCHESTRATOR_JOB = "ingest";
+    private static final int INVENTORY_PAGE_SIZE = 1000;
+    private static final String PLUGINS_TREE = "plugins[shortName,version,active]";
+
+    private static final int CIRCUIT_BREAKER_WINDOW = 20;
+    private static final double CIRCUIT_BREAKER_FAILURE_RATE = 0.5;
+    private static final int CIRCUIT_BREAKER_PAUSE_SECONDS = 30;
+    private static final long RETRY_BASE_DELAY_MILLIS = 500;
+    private static final long RETRY_MAX_DELAY_MILLIS = 30_000;
+
+    private HttpTransport transport;
+    private FolderManager folders;
+    private FolderInventory inventory;
+    private JobPlan planner;
+    private CheckpointJournal journal;
+    private StateManifest manifest;
+    private PruneMode pruneMode;
+    // Set when the process is asked to terminate, so that no more rows are read while in-flight requests drain
+    private volatile boolean stopping;
+
     @RequiredArgsConstructor
     enum Templates {
         FREESTYLE_JOB_DEFINITION("cli/jenkins/freestyle_job.xml.template"),
         FREESTYLE_SCM_DEFINITION("cli/jenkins/freestyle_scm.xml.template"),
+        FREESTYLE_CLONE_OPTION_DEFINITION("cli/jenkins/freestyle_clone_option.xml.template"),
+        FREESTYLE_TIMER_TRIGGER_DEFINITION("cli/jenkins/freestyle_timer_trigger.xml.template"),
+        FREESTYLE_SCM_TRIGGER_DEFINITION("cli/jenkins/freestyle_scm_trigger.xml.template"),
+        CACHED_DOWNLOAD_SHELL_DEFINITION("cli/jenkins/cached_download.sh.template"),
+        CACHED_DOWNLOAD_POWERSHELL_DEFINITION("cli/jenkins/cached_download.ps1.template"),
         FREESTYLE_SHELL_DEFINITION("cli/jenkins/freestyle_shell.xml.template"),
         FREESTYLE_POWERSHELL_DEFINITION("cli/jenkins/freestyle_powershell.xml.template"),
         FREESTYLE_GRADLE_DEFINITION("cli/jenkins/freestyle_gradle.xml.template"),
@@ -312,11 +606,18 @@ public class Jenkins implements Callable<Integer> {
         FREESTYLE_CREDENTIALS_DEFINITION("cli/jenkins/freestyle_credentials.xml.template"),
         FREESTYLE_CREDENTIALS_BINDING_USER_DEFINITION("cli/jenkins/freestyle_credentials_binding_user.xml.template"),
         FREESTYLE_CREDENTIALS_BINDING_TOKEN_DEFINITION("cli/jenkins/freestyle_credentials_binding_token.xml.template"),
-        FREESTYLE_MAVEN_SETTINGS_DEFINITION("cli/jenkins/freestyle_maven_settings.xml.template"),
+        FREESTYLE_CONFIG_FILES_DEFINITION("cli/jenkins/freestyle_config_files.xml.template"),
+        FREESTYLE_MANAGED_FILE_DEFINITION("cli/jenkins/freestyle_managed_file.xml.template"),
         FREESTYLE_CLEANUP_DEFINITION("cli/jenkins/freestyle_cleanup.xml.template"),
+        FREESTYLE_CLEANUP_PATTERN_DEFINITION("cli/jenkins/freestyle_cleanup_pattern.xml.template"),
         FOLDER_DEFINITION("cli/jenkins/jenkins_folder.xml.template"),
         PARAMETERS_VALIDATE_DEFINITION("cli/jenkins/validate_parameters.xml.template"),
-        BUILD_NAME_SETTER_VALIDATE_DEFINITION("cli/jenkins/validate_build_name_setter.xml.template");
+        PARAMETER_VALIDATE_DEFINITION("cli/jenkins/validate_parameter.xml.template"),
+        BUILD_NAME_SETTER_VALIDATE_DEFINITION("cli/jenkins/validate_build_name_setter.xml.template"),
+        ORCHESTRATOR_JOB_DEFINITION("cli/jenkins/orchestrator_job.xml.template"),
+        ORCHESTRATOR_PIPELINE_DEFINITION("cli/jenkins/orchestrator_pipeline.groovy.template"),
+        MANAGED_SCRIPT_DEFINITION("cli/jenkins/managed_script.sh.template"),
+        PUBLISH_MANAGED_SCRIPT_DEFINITION("cli/jenkins/publish_managed_script.groovy.template");
 
         private final String filename;
 
@@ -337,32 +638,185 @@ public class Jenkins implements Callable<Integer> {
             return 1;
         }
 
+        if (minConcurrency < 1 || maxConcurrency < minConcurrency) {
+            System.err.println("--minConcurrency must be at least 1 and not greater than --maxConcurrency");
+            return 1;
+        }
+
+        JobShards.Strategy shardStrategy = Arrays.stream(JobShards.Strategy.values())
+                .filter(strategy -> strategy.name().equalsIgnoreCase(shardBy))
+                .findFirst()
+                .orElse(null);
+        if (shardStrategy == null) {
+            System.err.println("Unsupported --shardBy: " + shardBy + ". The possible options are: none, org, or hash");
+            return 1;
+        }
+        if (shardStrategy == JobShards.Strategy.HASH && shards < 1) {
+            System.err.println("--shards must be at least 1");
+            return 1;
+        }
+        if (!StringUtils.isBlank(managedScript) && isWindowsPlatform()) {
+            System.err.println("--managedScript is not supported on windows agents");
+            return 1;
+        }
+        if (validateJobPerHost && !createValidateJobs) {
+            System.err.println("--validateJobPerHost requires --createValidateJobs");
+            return 1;
+        }
+        pruneMode = Arrays.stream(PruneMode.values())
+                .filter(mode -> mode.name().equalsIgnoreCase(pruneOrphans))
+                .findFirst()
+                .orElse(null);
+        if (pruneMode == null) {
+            System.err.println("Unsupported --pruneOrphans: " + pruneOrphans + ". The possible options are: none, delete, or disable");
+            return 1;
+        }
+        if (!StringUtils.isBlank(downloadCLISha256) && StringUtils.isBlank(downloadCLICache)) {
+            System.err.println("--downloadCLISha256 requires --downloadCLICache");
+            return 1;
+        }
+        if (incrementalWorkspace && workspaceCleanup) {
+            System.err.println("--incrementalWorkspace can not be combined with --workspaceCleanup");
+            return 1;
+        }
+        if (resume && checkpoint == null) {
+            System.err.println("--resume requires --checkpoint");
+            return 1;
+        }
+        if (exportTo != null && plan != null) {
+            System.err.println("--exportTo can not be combined with --plan");
+            return 1;
+        }
+        if (checkpoint != null && plan != null) {
+            System.err.println("--checkpoint can not be combined with --plan");
+            return 1;
+        }
+        if (stateManifest != null && exportTo != null) {
+            System.err.println("--stateManifest can not be combined with --exportTo");
+            return 1;
+        }
+        if (pruneMode != PruneMode.NONE && exportTo != null) {
+            System.err.println("--pruneOrphans can not be combined with --exportTo");
+            return 1;
+        }
+        if (orchestrator && pollScm) {
+            System.err.println("--pollScm can not be combined with --orchestrator");
+            return 1;
+        }
+        if (orchestrator && orchestratorParallelism < 1) {
+            System.err.println("--orchestratorParallelism must be at least 1");
+            return 1;
+        }
+        JobShards jobShards = new JobShards(shardStrategy, shards);
+
+        if (exportTo != null || plan != null && (planInventory != null || StringUtils.isBlank(controllerUrl))) {
+            // The controller is not contacted at all
+            if (pluginVersions == null) {
+                System.err.printf("[ERROR] Missing required option: --pluginVersions=<pluginVersions>, which is needed with %s%n",
+                        exportTo != null ? "--exportTo" : "--plan");
+                return 1;
+            }
+        } else if (StringUtils.isBlank(controllerUrl)) {
+            System.err.println("[ERROR] Missing required option: --controllerUrl=<controllerUrl>");
+            return 1;
+        } else if (StringUtils.isBlank(jenkinsUser)) {
+            System.err.println("[ERROR] Missing required option: --jenkinsUser=<jenkinsUser>");
+            return 1;
+        } else if (userSecret == null) {
+            System.err.println("[ERROR] Missing required option: --apiToken=<apiToken> or --jenkinsPwd=<jenkinsPwd>");
+            return 1;
+        } else {
+            transport = createTransport();
+        }
+
         final Map<String, String> plugins;
+        JobDslExport export = null;
+        ExecutorService executorService = null;
+        CountDownLatch drained = new CountDownLatch(1);
+        Thread drain = new Thread(() -> {
+            stopping = true;
+            try {
+                drained.await(drainTimeoutSeconds(), TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(drain);
         try {
             // try-with-resources not possible until Java
-            ExecutorService executorService = Executors.newFixedThreadPool(50);
+            executorService = WorkerExecutors.newWorkerExecutor(maxConcurrency, virtualThreads);
             plugins = resolveJenkinsPlugins();
+            if (stateManifest != null) {
+                manifest = new StateManifest(stateManifest);
+            }
+            if (checkpoint != null) {
+                journal = new CheckpointJournal(checkpoint, resume);
+                if (resume) {
+                    System.out.printf("Resuming from %d jobs recorded in %s%n", journal.size(), checkpoint);
+                }
+            }
+
+            if (exportTo != null) {
+                export = new JobDslExport(exportTo);
+                if (!StringUtils.isBlank(managedScript)) {
+                    export.customConfig(managedScript, MANAGED_SCRIPT_NAME, createManagedScript());
+                }
+            } else if (plan != null) {
+                // Without a cached inventory, the plan starts from what the controller actually holds
+                planner = new JobPlan(plan, planInventory, transport == null ? null : this::listJobs);
+                if (!StringUtils.isBlank(managedScript)) {
+                    planner.file(managedScript, createManagedScript());
+                }
+                folders = new FolderManager(transport == null ? planner::folderExists : this::folderExists, this::planFolder);
+                folders.ensure(folder);
+                if (createValidateJobs) {
+                    folders.ensure(VALIDATE_FOLDER);
+                }
+                inventory = new FolderInventory(planner::listJobs);
+            } else {
+                if (!StringUtils.isBlank(managedScript)) {
+                    publishManagedScript();
+                }
+
+                folders = new FolderManager(this::folderExists, folderPath -> createFolder(plugins, folderPath));
+                folders.ensure(folder);
+                if (createValidateJobs) {
+                    folders.ensure(VALIDATE_FOLDER);
+                }
 
-            if (!StringUtils.isBlank(folder)) {
-                if (!folderExists(folder)) {
-                    createFolder(plugins, folder);
+                // Take a single snapshot of the folder so that workers do not need to probe each job
+                inventory = new FolderInventory(this::listJobs);
+                int existingJobs = inventory.size(folder);
+                if (verbose) {
+                    System.out.printf("Found %d existing jobs in %s%n", existingJobs, folder);
                 }
             }
 
-            List<Future<Boolean>> responses = new ArrayList<>();
+            // Rows are read only as fast as the workers complete them, so memory use does not depend on the CSV size
+            CompletionWindow responses = new CompletionWindow(executorService, maxConcurrency * 2);
+            List<PendingJob> batch = new ArrayList<>();
+            StringBuilder orchestratorRepositories = orchestrator ? new StringBuilder() : null;
+            Set<String> validateJobs = new HashSet<>();
+            // The jobs each folder should hold once the CSV file is applied, to tell which of the others to prune
+            Map<String, Set<String>> expectedJobs = pruneMode == PruneMode.NONE ? null : new HashMap<>();
             BufferedReader br = new BufferedReader(new FileReader(fromCsv.toFile()));
             String line;
             int lineNumber = 1;
-            while ((line = br.readLine()) != null) {
+            int invalidRows = 0;
+            int columns = 10;
+            CloneOptions cloneOptions = new CloneOptions(cloneDepth, cloneNoTags, cloneHonorRefspec, cloneReference);
+            while (!stopping && (line = br.readLine()) != null) {
                 // scmHost, repoName, repoBranch, mavenTool, gradleTool, jdkTool, repoStyle, repoBuildAction, repoSkip, skipReason
                 if (line.startsWith("scmHost")) {
+                    // skipReason may contain commas, so the optional cloneOptions column must be named in the header
+                    columns = line.contains(CLONE_OPTIONS_COLUMN) ? 11 : 10;
                     lineNumber++;
                     continue;
                 }
-                String[] values = line.split(",", 10);
-                if (values.length != 10) {
+                String[] values = line.split(",", columns);
+                if (values.length < 10) {
                     System.err.println("[ERROR] Invalid schema for line " + lineNumber);
-                    System.err.println("The required schema is [scmHost, repoName, repoBranch, mavenTool, gradleTool, jdkTool, repoStyle, repoBuildAction, repoSkip, skipReason]");
+                    System.err.println("The required schema is [scmHost, repoName, repoBranch, mavenTool, gradleTool, jdkTool, repoStyle, repoBuildAction, repoSkip, skipReason(, cloneOptions)]");
                     return 1;
                 }
 
@@ -392,21 +846,33 @@ public class Jenkins implements Callable<Integer> {
                 }
 
                 String projectName = repoSlug.replaceAll("/", "_") + "_" + branch.replaceAll("/", "_");
+                String jobFolder = jobShards.folder(folder, repoSlug, projectName);
                 if (!StringUtils.isBlank(repoSkip) && "true".equalsIgnoreCase(repoSkip)) {
-                    if (deleteSkipped) {
+                    if (orchestratorRepositories == null) {
+                        expectJob(expectedJobs, jobFolder, projectName);
+                    }
+                    if (createValidateJobs && !validateJobPerHost) {
+                        expectJob(expectedJobs, jobShards.folder(VALIDATE_FOLDER, repoSlug, projectName), projectName);
+                    }
+                    if (deleteSkipped && export == null) {
+                        if (manifest != null) {
+                            // Applied again in full once the row is no longer skipped
+                            manifest.deleted(jobFolder + "/" + projectName);
+                        }
                         final int currentNumberFinal = lineNumber;
-                        responses.add(executorService.submit(() -> {
-                            if (!jobExists(folder, projectName)) {
+                        responses.submit(() -> {
+                            if (!inventory.contains(jobFolder, projectName)) {
                                 System.out.printf("Skipping %s at line %d because it is marked as skipped: %s%n", repoSlug, currentNumberFinal, skipReason);
                                 return true;
                             }
-                            if (!deleteJob(folder, projectName)) {
+                            if (!deleteJob(jobFolder, projectName)) {
                                 System.out.printf("Failed to delete %s at line %d because it is marked as skipped: %s%n", repoSlug, currentNumberFinal, skipReason);
                                 return false;
                             }
+                            inventory.removed(jobFolder, projectName);
                             System.out.printf("Deleted %s at line %d because it is marked as skipped: %s%n", repoSlug, currentNumberFinal, skipReason);
                             return true;
-                        }));
+                        });
                     } else {
                         System.out.printf("Skipping %s at line %d because it is marked as skipped: %s%n", repoSlug, lineNumber, skipReason);
                     }
@@ -414,40 +880,113 @@ public class Jenkins implements Callable<Integer> {
                     continue;
                 }
 
-                String gitURL = host + "/" + repoSlug + ".git";
-                if (StringUtils.isBlank(branch)) {
-                    branch = defaultBranch;
+                // Only read for rows that are not skipped, as a comma in a skip reason shifts it into this column
+                CloneOptions repoCloneOptions;
+                try {
+                    repoCloneOptions = cloneOptions.withOverrides(values.length > 10 ? values[10] : "");
+                } catch (IllegalArgumentException e) {
+                    System.err.printf("[ERROR] Skipping %s at line %d because of invalid cloneOptions: %s%n", repoSlug, lineNumber, e.getMessage());
+                    // The jobs of the row are left as they are rather than pruned
+                    if (orchestratorRepositories == null) {
+                        expectJob(expectedJobs, jobFolder, projectName);
+                    }
+                    if (createValidateJobs && !validateJobPerHost) {
+                        expectJob(expectedJobs, jobShards.folder(VALIDATE_FOLDER, repoSlug, projectName), projectName);
+                    }
+                    invalidRows++;
+                    lineNumber++;
+                    continue;
                 }
 
-                // Create the Jenkins job
-                String job = createJob(plugins, branch, jdkTool, mavenTool, gradleTool, repoStyle, repoBuildAction, gitURL, false);
-                responses.add(executorService.submit(() -> createJob(folder, projectName, job)));
-
-                if (createValidateJobs) {
-                    String validateFolder = "validate";
-                    if (!folderExists(validateFolder)) {
-                        createFolder(plugins, validateFolder);
+                String scmHost = host;
+                String gitURL = host + "/" + repoSlug + ".git";
+                String repoBranch = StringUtils.isBlank(branch) ? defaultBranch : branch;
+
+                // Create the Jenkins job, rendering it only once a worker picks it up
+                List<PendingJob> jobs = new ArrayList<>(2);
+                if (orchestratorRepositories != null) {
+                    orchestratorRepositories.append(String.join(",", projectName, gitURL, repoBranch, jdkTool, mavenTool, gradleTool))
+                            .append('\n');
+                } else {
+                    jobs.add(new PendingJob(lineNumber, jobFolder, projectName, () ->
+                            createJob(plugins, repoBranch, jdkTool, mavenTool, gradleTool, repoStyle, repoBuildAction, gitURL, repoCloneOptions, false)));
+                }
+                if (createValidateJobs && validateJobPerHost) {
+                    String validateJobName = createValidateJobName(scmHost, mavenTool, gradleTool);
+                    if (validateJobs.add(validateJobName)) {
+                        jobs.add(new PendingJob(lineNumber, VALIDATE_FOLDER, validateJobName, () ->
+                                createValidateJob(plugins, scmHost, mavenTool, gradleTool, cloneOptions)));
                     }
+                } else if (createValidateJobs) {
+                    jobs.add(new PendingJob(lineNumber, jobShards.folder(VALIDATE_FOLDER, repoSlug, projectName), projectName, () ->
+                            createJob(plugins, repoBranch, jdkTool, mavenTool, gradleTool, repoStyle, repoBuildAction, gitURL, repoCloneOptions, true)));
+                }
 
-                    String validateJob = createJob(plugins, branch, jdkTool, mavenTool, gradleTool, repoStyle, repoBuildAction, gitURL, true);
-                    responses.add(executorService.submit(() -> createJob(validateFolder, projectName, validateJob)));
+                for (PendingJob job : jobs) {
+                    expectJob(expectedJobs, job.folderPath, job.jobName);
+                    if (export != null) {
+                        export.job(job.folderPath, job.jobName, job.config.get());
+                    } else if (bulkBatchSize <= 0 || planner != null) {
+                        responses.submit(() -> applyJob(job));
+                    } else {
+                        batch.add(job);
+                        if (batch.size() >= bulkBatchSize) {
+                            List<PendingJob> full = batch;
+                            responses.submit(() -> applyJobs(full));
+                            batch = new ArrayList<>();
+                        }
+                    }
                 }
 
                 lineNumber++;
             }
+            if (stopping) {
+                // The remaining rows are left to a resumed run, and nothing is pruned from a partial CSV file
+                System.err.printf("[ERROR] Interrupted at line %d, waiting for the requests in flight to complete%n", lineNumber);
+                responses.awaitFailures();
+                if (manifest != null && planner == null) {
+                    manifest.save(false);
+                }
+                return 1;
+            }
+            if (orchestratorRepositories != null) {
+                String orchestratorJob = createOrchestratorJob(plugins, orchestratorRepositories.toString());
+                expectJob(expectedJobs, folder, ORCHESTRATOR_JOB);
+                if (export != null) {
+                    export.job(folder, ORCHESTRATOR_JOB, orchestratorJob);
+                } else {
+                    // The orchestrator job depends on every row, so it is journaled as line 0
+                    PendingJob job = new PendingJob(0, folder, ORCHESTRATOR_JOB, () -> orchestratorJob);
+                    responses.submit(() -> applyJob(job));
+                }
+            }
+            if (export != null) {
+                export.close();
+                System.out.printf("%d jobs have been exported to %s%n", export.getJobs(), exportTo);
+                return invalidRows == 0 ? 0 : 1;
+            }
+            if (!batch.isEmpty()) {
+                List<PendingJob> last = batch;
+                responses.submit(() -> applyJobs(last));
+            }
+            boolean pruned = expectedJobs == null || pruneOrphans(responses, expectedJobs);
             // Wait for all the jobs to be created before returning
-            int failed = 0;
-            for (Future<Boolean> future : responses) {
-                try {
-                    if (!future.get()) {
-                        failed++;
-                    }
-                } catch (InterruptedException | ExecutionException e) {
-                    // Swallow any exceptions to ensure all other jobs are created before we exit
-                    failed++;
+            int failures = responses.awaitFailures() + invalidRows;
+            if (manifest != null && planner == null) {
+                Set<String> removed = manifest.removed();
+                if (!removed.isEmpty()) {
+                    System.out.printf("%d jobs are no longer in the CSV file since the last run: %s%n",
+                            removed.size(), String.join(", ", removed));
                 }
+                manifest.save(true);
+            }
+            if (planner != null) {
+                planner.close();
+                System.out.printf("Plan written to %s: %s%n", plan, planner.getCounts().entrySet().stream()
+                        .map(count -> count.getValue() + " " + count.getKey())
+                        .collect(Collectors.joining(", ")));
             }
-            return failed;
+            return pruned ? failures : Math.max(failures, 1);
         } catch (Throwable e) {
             System.err.println("ERROR configuring Jenkins.");
             System.err.println(e.getMessage());
@@ -457,51 +996,130 @@ public class Jenkins implements Callable<Integer> {
                 System.err.println("Please, use --verbose for more details.");
             }
             return 1;
+        } finally {
+            // Workers still in flight after a failure are drained before the transport they use is closed
+            if (executorService != null) {
+                executorService.shutdown();
+                try {
+                    executorService.awaitTermination(drainTimeoutSeconds(), TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (transport != null) {
+                transport.close();
+            }
+            IOUtils.closeQuietly(export);
+            IOUtils.closeQuietly(planner);
+            IOUtils.closeQuietly(journal);
+            // The command may be executed again, and must not pick up the mode of this run
+            transport = null;
+            planner = null;
+            journal = null;
+            manifest = null;
+            drained.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(drain);
+            } catch (IllegalStateException ignored) {
+                // The JVM is already shutting down, and the hook is waiting for the drain above
+            }
+        }
+    }
+
+    private HttpTransport createTransport() {
+        // The crumb is fetched through the same transport, so that it is bound to the session the jobs are sent in
+        CrumbCache crumbs = userSecret.needsCrumb() ? new CrumbCache(this::requestCrumb) : null;
+        return HttpTransport.builder()
+                .authenticator(new JenkinsAuthenticator(jenkinsUser, userSecret.get(), crumbs))
+                .maxConnections(maxConcurrency)
+                .connectTimeoutMillis((int) TimeUnit.SECONDS.toMillis(connectTimeout))
+                .readTimeoutMillis((int) TimeUnit.SECONDS.toMillis(readTimeout))
+                .limiter(new AdaptiveLimiter(minConcurrency, maxConcurrency))
+                .rateLimiter(maxRequestsPerSecond > 0 ? new RateLimiter(maxRequestsPerSecond) : null)
+                .retryPolicy(new RetryPolicy(maxRetries, RETRY_BASE_DELAY_MILLIS, RETRY_MAX_DELAY_MILLIS))
+                .circuitBreaker(new CircuitBreaker(CIRCUIT_BREAKER_WINDOW, CIRCUIT_BREAKER_FAILURE_RATE,
+                        CIRCUIT_BREAKER_PAUSE_SECONDS, TimeUnit.SECONDS))
+                .build();
+    }
+
+    String createJob(Map<String, String> plugins, String branch, String jdkTool, String mavenTool, String gradleTool, String repoStyle, String repoBuildAction, String gitURL, CloneOptions cloneOptions, boolean isValidateJob) {
+        String jobParameters = isValidateJob ? Templates.PARAMETERS_VALIDATE_DEFINITION.format("") : "";
+        return createJob(plugins, branch, jdkTool, mavenTool, gradleTool, repoStyle, repoBuildAction, gitURL, gitURL, cloneOptions, jobParameters, isValidateJob);
+    }
+
+    /**
+     * Creates the validate job shared by all the repositories of an SCM host that are built with the same tools.
+     * The repository, branch and JDK are passed as build parameters, since the Git plugin expands them in the
+     * remote URL and branch specifier.
+     */
+    String createValidateJob(Map<String, String> plugins, String scmHost, String mavenTool, String gradleTool, CloneOptions cloneOptions) {
+        String jobParameters = Templates.PARAMETERS_VALIDATE_DEFINITION.format(
+                Templates.PARAMETER_VALIDATE_DEFINITION.format(GIT_URL_PARAMETER, "The url of the repository to validate.") +
+                Templates.PARAMETER_VALIDATE_DEFINITION.format(BRANCH_PARAMETER, "The branch of the repository to validate.") +
+                Templates.PARAMETER_VALIDATE_DEFINITION.format(JDK_PARAMETER, "The JDK to build the repository with, if any."));
+        String jdkTool = isWindowsPlatform() ? "$env:" + JDK_PARAMETER : "\"${" + JDK_PARAMETER + "}\"";
+        return createJob(plugins, "${" + BRANCH_PARAMETER + "}", jdkTool, mavenTool, gradleTool, null, null,
+                "${" + GIT_URL_PARAMETER + "}", scmHost, cloneOptions, jobParameters, true);
+    }
+
+    static String createValidateJobName(String scmHost, String mavenTool, String gradleTool) {
+        String name;
+        try {
+            name = new URL(scmHost).getHost();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+        if (!StringUtils.isBlank(mavenTool)) {
+            name += "_" + mavenTool;
         }
+        if (!StringUtils.isBlank(gradleTool)) {
+            name += "_" + gradleTool;
+        }
+        return name.replaceAll("[^A-Za-z0-9_.-]", "_");
     }
 
-    String createJob(Map<String, String> plugins, String branch, String jdkTool, String mavenTool, String gradleTool, String repoStyle, String repoBuildAction, String gitURL, boolean isValidateJob) {
-        String scm = createFreestyleScm(plugins, gitURL, branch);
+    private String createJob(Map<String, String> plugins, String branch, String jdkTool, String mavenTool, String gradleTool, String repoStyle, String repoBuildAction, String gitURL, String scmHost, CloneOptions cloneOptions, String jobParameters, boolean isValidateJob) {
+        String scm = createFreestyleScm(plugins, gitURL, branch, cloneOptions);
         String assignedNode = StringUtils.isBlank(agent)? "  <canRoam>true</canRoam>" : "  <assignedNode>" + agent.replace("&", "&amp;") + "</assignedNode>\n  <canRoam>false</canRoam>";
         String steps = createFreestyleSteps(plugins, jdkTool, mavenTool, gradleTool, repoStyle, repoBuildAction, isValidateJob);
-        String credentials = isValidateJob ? createFreestyleValidateCredentials(plugins, gitURL) : createFreestyleCredentials(plugins);
-        String configFiles = createFreestyleConfigFiles(plugins);
-        String cleanup = createFreestyleCleanup(plugins);
-        String jobParameters = isValidateJob ? Templates.PARAMETERS_VALIDATE_DEFINITION.format() : "";
+        String credentials = isValidateJob ? createFreestyleValidateCredentials(plugins, scmHost) : createFreestyleCredentials(plugins);
+        String configFiles = createFreestyleConfigFiles(plugins, isValidateJob);
+        String cleanup = createFreestyleCleanup(plugins, isValidateJob);
         String buildNameSetter = isValidateJob ? Templates.BUILD_NAME_SETTER_VALIDATE_DEFINITION.format() : "";
         return createFreestyleJob(jobParameters, scm, assignedNode, steps, cleanup, credentials, configFiles, buildNameSetter, isValidateJob);
     }
 
-    private <T extends HttpRequest<T>> T authenticate(T request) {
-        T withBasicAuth = request.basicAuth(jenkinsUser, userSecret.get());
-        if (!userSecret.needsCrumb()) {
-            return withBasicAuth;
+    private Map<String, String> resolveJenkinsPlugins() throws IOException {
+        String plugins;
+        if (pluginVersions != null) {
+            plugins = new String(Files.readAllBytes(pluginVersions), StandardCharsets.UTF_8);
+        } else if (pluginCacheTtl > 0) {
+            Path cacheDirectory = Paths.get(System.getProperty("user.home"), ".moderne", "connect");
+            plugins = new PluginCache(cacheDirectory, pluginCacheTtl, TimeUnit.MINUTES)
+                    .get(controllerUrl, this::requestPlugins);
+        } else {
+            plugins = requestPlugins();
         }
-        return withBasicAuth
-                .header(JENKINS_CRUMB_HEADER, generateCrumb(controllerUrl, jenkinsUser, userSecret.get()));
-    }
-
-    private Map<String, String> resolveJenkinsPlugins() throws JsonProcessingException {
-        HttpResponse<String> pluginsResponse = authenticate(Unirest.get(controllerUrl + "/pluginManager/api/json"))
-                .queryString("depth", "1")
-                .queryString("xpath", "/*/*/shortName|/*/*/version")
-                .queryString("wrapper", "plugins").asString();
         ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode node = objectMapper.readTree(pluginsResponse.getBody());
+        JsonNode node = objectMapper.readTree(plugins);
         Map<String, String> result = new HashMap<>();
         Set<String> requiredPlugins = new HashSet<>(REQUIRED_PLUGINS);
-        if (!StringUtils.isBlank(mavenSettingsConfigFileId)) {
+        if (!StringUtils.isBlank(mavenSettingsConfigFileId) || !StringUtils.isBlank(managedScript)) {
             requiredPlugins.add(CONFIG_FILE_PLUGIN);
         }
-        if (workspaceCleanup) {
+        if (workspaceCleanup || incrementalWorkspace) {
             requiredPlugins.add(CLEAN_UP_PLUGIN);
         }
+        if (orchestrator) {
+            requiredPlugins.add(WORKFLOW_JOB_PLUGIN);
+            requiredPlugins.add(WORKFLOW_CPS_PLUGIN);
+        }
 
         JsonNode pluginsNode = node.get("plugins");
         int pluginsSize = pluginsNode.size();
         for (int i = 0; i < pluginsSize; i++) {
             JsonNode pluginNode = pluginsNode.get(i);
-            if (pluginNode.get("active").asBoolean(false)) {
+            if (pluginNode.path("active").asBoolean(true)) {
                 result.put(pluginNode.get("shortName").asText(), pluginNode.get("version").asText());
             }
         }
@@ -520,17 +1138,30 @@ public class Jenkins implements Callable<Integer> {
         return result;
     }
 
+    private String requestPlugins() {
+        // Only the fields that are needed, as the full plugin metadata is large on controllers with many plugins
+        HttpResponse<String> response = transport.execute(() -> transport.get(controllerUrl + "/pluginManager/api/json")
+                .queryString("tree", PLUGINS_TREE), true);
+        if (!response.isSuccess()) {
+            throw new RuntimeException(String.format("Unable to list the Jenkins plugins: HTTP %s: %s",
+                    response.getStatus(), response.getStatusText()));
+        }
+        return response.getBody();
+    }
+
     private boolean folderExists(String folderPath) {
-        return authenticate(Unirest.get(controllerUrl + "/job/" + folderPath + "/api/json"))
-                .asEmpty()
+        return transport.execute(() -> transport.get(folderUrl(folderPath) + "/api/json")
+                .queryString("tree", "name"), true)
                 .isSuccess();
     }
 
     private void createFolder(Map<String, String> plugins, String folderPath) {
-        if (!authenticate(Unirest.post(controllerUrl + "/createItem?name=" + folderPath))
+        int separator = folderPath.lastIndexOf('/');
+        String parentUrl = separator < 0 ? controllerUrl : folderUrl(folderPath.substring(0, separator));
+        String name = folderPath.substring(separator + 1);
+        if (!transport.execute(() -> transport.post(parentUrl + "/createItem?name=" + name)
                 .header(HeaderNames.CONTENT_TYPE, "text/xml")
-                .body(Templates.FOLDER_DEFINITION.format(plugins.get(CLOUDBEES_FOLDER_PLUGIN), folderPath))
-                .asString()
+                .body(Templates.FOLDER_DEFINITION.format(plugins.get(CLOUDBEES_FOLDER_PLUGIN), name)), false)
                 .ifFailure(response -> {
                     System.err.println("[ERROR] The folder " + folderPath + " can not be created");
                     System.err.println(response.getBody());
@@ -539,54 +1170,221 @@ public class Jenkins implements Callable<Integer> {
         }
     }
 
-    private boolean jobExists(String folderPath, String jobName) {
-        return authenticate(Unirest.get(controllerUrl + "/job/" + folderPath + "/job/" + jobName + "/api/json"))
-                .asEmpty()
-                .isSuccess();
+    private FolderInventory.Listing listJobs(String folderPath) {
+        Map<String, String> jobs = new HashMap<>();
+        Set<String> subfolders = new HashSet<>();
+        ObjectMapper objectMapper = new ObjectMapper();
+        // Large folders are listed in pages so that the controller never has to serialize all of them at once
+        for (int from = 0; ; from += INVENTORY_PAGE_SIZE) {
+            // A plan compares fingerprints even without --skipUnchanged, to tell updated from unchanged jobs
+            String tree = (skipUnchanged || planner != null ? "jobs[_class,name,description]{" : "jobs[_class,name]{") +
+                          from + "," + (from + INVENTORY_PAGE_SIZE) + "}";
+            HttpResponse<String> response = transport.execute(() -> transport.get(folderUrl(folderPath) + "/api/json")
+                    .queryString("tree", tree), true);
+            if (response.getStatus() == 404) {
+                return new FolderInventory.Listing(jobs, subfolders);
+            }
+            if (!response.isSuccess()) {
+                throw new RuntimeException(String.format("Unable to list the jobs in %s: HTTP %s: %s",
+                        folderPath, response.getStatus(), response.getStatusText()));
+            }
+            try {
+                JsonNode page = objectMapper.readTree(response.getBody()).path("jobs");
+                for (JsonNode job : page) {
+                    // Shard subfolders are not jobs, so they are neither updated nor pruned themselves
+                    if (isFolder(job.path("_class").asText(""))) {
+                        subfolders.add(job.get("name").asText());
+                    } else {
+                        jobs.put(job.get("name").asText(), job.path("description").asText(""));
+                    }
+                }
+                if (page.size() < INVENTORY_PAGE_SIZE) {
+                    return new FolderInventory.Listing(jobs, subfolders);
+                }
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void expectJob(Map<String, Set<String>> expectedJobs, String folderPath, String jobName) {
+        if (expectedJobs != null) {
+            expectedJobs.computeIfAbsent(folderPath, path -> new HashSet<>()).add(jobName);
+        }
+        if (manifest != null) {
+            manifest.seen(folderPath + "/" + jobName);
+        }
+    }
+
+    /**
+     * Deletes or disables the jobs of the folders managed by this run that are not expected, using the listing of
+     * each folder that was taken for the run. The subfolders of --folder are searched too, as a shard may no longer
+     * hold any expected job, such as after changing --shardBy. The validate folder is shared by the runs of every
+     * --folder, so only when this run creates validate jobs is it searched, and then only for the jobs and shards named
+     * like those of --folder. Nothing is pruned when there are more orphans than --maxPrunes.
+     */
+    private boolean pruneOrphans(CompletionWindow responses, Map<String, Set<String>> expectedJobs) throws InterruptedException {
+        Map<String, String> folderPaths = subfolderPaths(folder, null);
+        Set<String> jobNames = new HashSet<>();
+        for (String folderPath : folderPaths.values()) {
+            jobNames.addAll(inventory.jobNames(folderPath));
+            jobNames.addAll(expectedJobs.getOrDefault(folderPath, Collections.emptySet()));
+        }
+        Map<String, List<String>> orphans = new TreeMap<>();
+        int count = findOrphans(folderPaths.values(), expectedJobs, null, orphans);
+        if (createValidateJobs) {
+            count += findOrphans(subfolderPaths(VALIDATE_FOLDER, folderPaths.keySet()).values(), expectedJobs, jobNames, orphans);
+        }
+        if (count > maxPrunes) {
+            System.err.printf("[ERROR] %d jobs are no longer in the CSV file, which is more than --maxPrunes %d allows. " +
+                              "No job has been pruned.%n", count, maxPrunes);
+            return false;
+        }
+
+        boolean delete = pruneMode == PruneMode.DELETE;
+        for (Map.Entry<String, List<String>> entry : orphans.entrySet()) {
+            String folderPath = entry.getKey();
+            for (String jobName : entry.getValue()) {
+                responses.submit(() -> {
+                    if (!(delete ? deleteJob(folderPath, jobName) : disableJob(folderPath, jobName))) {
+                        return false;
+                    }
+                    if (delete) {
+                        inventory.removed(folderPath, jobName);
+                    }
+                    System.out.printf("%s %s/%s because it is no longer in the CSV file%n",
+                            delete ? "Deleted" : "Disabled", folderPath, jobName);
+                    return true;
+                });
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param shards The subfolder paths, relative to the folder, that may be searched, or null to search every one
+     * @return The path of the folder and of its subfolders, by their path relative to the folder
+     */
+    private Map<String, String> subfolderPaths(String folderPath, Set<String> shards) {
+        Map<String, String> folderPaths = new TreeMap<>();
+        Deque<String> unsearched = new ArrayDeque<>();
+        unsearched.add("");
+        while (!unsearched.isEmpty()) {
+            String relativePath = unsearched.poll();
+            String path = relativePath.isEmpty() ? folderPath : folderPath + "/" + relativePath;
+            folderPaths.put(relativePath, path);
+            // The root of the controller is not searched, as its subfolders are not managed by this run
+            if (!folderPath.isEmpty()) {
+                for (String subfolder : inventory.subfolders(path)) {
+                    String relativeSubfolder = relativePath.isEmpty() ? subfolder : relativePath + "/" + subfolder;
+                    if (shards == null || shards.contains(relativeSubfolder)) {
+                        unsearched.add(relativeSubfolder);
+                    }
+                }
+            }
+        }
+        return folderPaths;
+    }
+
+    /**
+     * @param jobNames The only job names that may be pruned, or null when any job of the folders may be
+     * @return The number of orphans found
+     */
+    private int findOrphans(Collection<String> folderPaths, Map<String, Set<String>> expectedJobs,
+                            Set<String> jobNames, Map<String, List<String>> orphans) {
+        String jobPrefix = prefix.replaceAll("/", "_").toLowerCase();
+        int count = 0;
+        for (String folderPath : folderPaths) {
+            Set<String> expected = expectedJobs.getOrDefault(folderPath, Collections.emptySet());
+            for (String jobName : inventory.jobNames(folderPath)) {
+                if (!expected.contains(jobName) && jobName.toLowerCase().startsWith(jobPrefix) &&
+                    (jobNames == null || jobNames.contains(jobName))) {
+                    orphans.computeIfAbsent(folderPath, path -> new ArrayList<>()).add(jobName);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean isFolder(String itemClass) {
+        return itemClass.endsWith("Folder") || itemClass.endsWith("MultiBranchProject");
     }
 
     private boolean deleteJob(String folderPath, String jobName) {
+        return postJobAction(folderPath, jobName, "doDelete", "deleted");
+    }
+
+    private boolean disableJob(String folderPath, String jobName) {
+        return postJobAction(folderPath, jobName, "disable", "disabled");
+    }
+
+    private boolean postJobAction(String folderPath, String jobName, String action, String verb) {
+        if (planner != null) {
+            try {
+                if ("doDelete".equals(action)) {
+                    planner.deleted(folderPath, jobName);
+                } else {
+                    planner.disabled(folderPath, jobName);
+                }
+                return true;
+            } catch (IOException e) {
+                System.err.printf("[ERROR] The job %s can not be planned: Exception %s%n", jobName, e.getMessage());
+                return false;
+            }
+        }
+        // A delete is retried when its response is lost, and the retry then finds the job already gone
+        boolean delete = "doDelete".equals(action);
         try {
-            int code = authenticate(Unirest.post(controllerUrl + "/job/" + folderPath + "/job/" + jobName + "/doDelete"))
-                    .asString()
+            int code = transport.execute(() -> transport.post(folderUrl(folderPath) + "/job/" + jobName + "/" + action), true)
                     .ifFailure(response -> {
                         int responseStatus = response.getStatus();
-                        if (responseStatus != 302) {
-                            System.err.printf("[ERROR] The job %s can not be deleted: HTTP %s: %s%n",
-                                    jobName, responseStatus, response.getStatusText());
+                        if (responseStatus != 302 && !(delete && responseStatus == 404)) {
+                            System.err.printf("[ERROR] The job %s can not be %s: HTTP %s: %s%n",
+                                    jobName, verb, responseStatus, response.getStatusText());
                             System.err.println(response.getHeaders());
                             System.err.println(response.getBody());
                         }
                     })
                     .getStatus();
-            return code == 302 || code == 200;
+            return code == 302 || code == 200 || delete && code == 404;
         } catch (UnirestException e) {
-            System.err.printf("[ERROR] The job %s can not be deleted: Exception %s%n", jobName, e.getMessage());
+            System.err.printf("[ERROR] The job %s can not be %s: Exception %s%n", jobName, verb, e.getMessage());
             return false;
         }
     }
 
     private boolean createJob(String folderPath, String jobName, String job) {
+        if (planner != null) {
+            return planJob(folderPath, jobName, job);
+        }
         // Switch between create and update URLs
-        boolean jobExists = jobExists(folderPath, jobName);
+        boolean jobExists = inventory.contains(folderPath, jobName);
+        String fingerprint = skipUnchanged ? JobFingerprint.of(job) : null;
+        if (isUnchanged(folderPath, jobName, fingerprint)) {
+            return true;
+        }
+        String description = fingerprint == null ? "" : JobFingerprint.describe(fingerprint);
+        String config = fingerprint == null ? job : JobFingerprint.embed(job, fingerprint);
         String verb = jobExists ? "updated" : "created";
         String url = jobExists
-                ? controllerUrl + "/job/" + folderPath + "/job/" + jobName + "/config.xml"
-                : controllerUrl + "/job/" + folderPath + "/createItem?name=" + jobName;
+                ? folderUrl(folderPath) + "/job/" + jobName + "/config.xml"
+                : folderUrl(folderPath) + "/createItem?name=" + jobName;
         try {
-            return authenticate(Unirest.post(url)
+            return transport.execute(() -> transport.post(url)
                     .header(HeaderNames.ACCEPT, "application/json")
-                    .header(HeaderNames.CONTENT_TYPE, "text/xml"))
-                    .body(job)
-                    .asString()
+                    .header(HeaderNames.CONTENT_TYPE, "text/xml")
+                    .body(config), jobExists)
                     .ifFailure(response -> {
                         System.err.printf("[ERROR] The job %s can not be %s: HTTP %s: %s%n",
                                 jobName, verb, response.getStatus(), response.getStatusText());
                         System.err.println(response.getHeaders());
                         System.err.println(response.getBody());
                     })
-                    .ifSuccess(response -> System.out.printf("Job %s %s successfully in %s%n",
-                            jobName, verb, folderPath))
+                    .ifSuccess(response -> {
+                        inventory.added(folderPath, jobName, description);
+                        System.out.printf("Job %s %s successfully in %s%n", jobName, verb, folderPath);
+                    })
                     .isSuccess();
         } catch (UnirestException e) {
             System.err.printf("[ERROR] The job %s can not be %s: Exception %s%n", jobName, verb, e.getMessage());
@@ -594,11 +1392,185 @@ public class Jenkins implements Callable<Integer> {
         }
     }
 
+    /**
+     * Writes the job to the plan instead of the controller. The fingerprint is always recorded in the plan
+     * inventory, so that a later plan can tell updated jobs from unchanged ones.
+     */
+    private boolean planJob(String folderPath, String jobName, String job) {
+        String fingerprint = JobFingerprint.of(job);
+        String description = JobFingerprint.describe(fingerprint);
+        String verb = !inventory.contains(folderPath, jobName) ? "created" :
+                JobFingerprint.matches(inventory.description(folderPath, jobName), fingerprint) ? "unchanged" : "updated";
+        try {
+            planner.job(folderPath, jobName, verb, skipUnchanged ? JobFingerprint.embed(job, fingerprint) : job, description);
+        } catch (IOException e) {
+            System.err.printf("[ERROR] The job %s can not be planned: Exception %s%n", jobName, e.getMessage());
+            return false;
+        }
+        inventory.added(folderPath, jobName, description);
+        return true;
+    }
+
+    private void planFolder(String folderPath) {
+        try {
+            planner.folder(folderPath);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private long drainTimeoutSeconds() {
+        // Long enough for a request in flight to go through all of its retries
+        return (long) (connectTimeout + readTimeout) * (maxRetries + 1) + TimeUnit.MILLISECONDS.toSeconds(RETRY_MAX_DELAY_MILLIS);
+    }
+
+    private boolean applyJob(PendingJob job) {
+        String config = job.config.get();
+        String hash = journal == null && manifest == null ? null : JobFingerprint.of(config);
+        if (isCheckpointed(job, hash)) {
+            return true;
+        }
+        folders.ensure(job.folderPath);
+        if (!createJob(job.folderPath, job.jobName, config)) {
+            return false;
+        }
+        checkpoint(job, hash);
+        return true;
+    }
+
+    private boolean isCheckpointed(PendingJob job, String hash) {
+        if (journal != null && journal.isApplied(job.lineNumber, job.fullName(), hash) ||
+            manifest != null && manifest.isApplied(job.fullName(), hash)) {
+            if (verbose) {
+                System.out.printf("Job %s was already applied in %s%n", job.jobName, job.folderPath);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void checkpoint(PendingJob job, String hash) {
+        if (planner != null) {
+            // Nothing was sent to the controller, so the job still has to be applied by the next run
+            return;
+        }
+        if (manifest != null) {
+            manifest.applied(job.fullName(), hash);
+        }
+        if (journal != null) {
+            try {
+                journal.applied(job.lineNumber, job.fullName(), hash);
+            } catch (IOException e) {
+                System.err.printf("[ERROR] The job %s can not be recorded in %s: %s%n", job.jobName, checkpoint, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Applies a batch of jobs with a single script console request, reporting the outcome of each job.
+     */
+    private boolean applyJobs(List<PendingJob> jobs) {
+        ScriptConsoleBatch batch = new ScriptConsoleBatch();
+        Map<String, String> descriptions = new HashMap<>();
+        Map<String, PendingJob> pending = new HashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        for (PendingJob job : jobs) {
+            String config = job.config.get();
+            String hash = journal == null && manifest == null && !skipUnchanged ? null : JobFingerprint.of(config);
+            if (isCheckpointed(job, hash)) {
+                continue;
+            }
+            pending.put(job.fullName(), job);
+            hashes.put(job.fullName(), hash);
+            folders.ensure(job.folderPath);
+            String fingerprint = skipUnchanged ? hash : null;
+            if (isUnchanged(job.folderPath, job.jobName, fingerprint)) {
+                // Recorded like an applied job, as applyJob does, so that it is not processed again
+                checkpoint(job, hash);
+                continue;
+            }
+            if (fingerprint != null) {
+                config = JobFingerprint.embed(config, fingerprint);
+                descriptions.put(job.folderPath + "/" + job.jobName, JobFingerprint.describe(fingerprint));
+            }
+            batch.add(job.folderPath, job.jobName, config);
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        HttpResponse<String> response;
+        try {
+            // The script creates or updates each job as needed, so it can safely be repeated
+            response = transport.execute(() -> transport.post(controllerUrl + "/scriptText")
+                    .field("script", batch.script()), true);
+        } catch (UnirestException e) {
+            System.err.printf("[ERROR] A batch of %d jobs can not be applied: Exception %s%n", batch.size(), e.getMessage());
+            return false;
+        }
+        if (!response.isSuccess()) {
+            System.err.printf("[ERROR] A batch of %d jobs can not be applied: HTTP %s: %s%n",
+                    batch.size(), response.getStatus(), response.getStatusText());
+            System.err.println(response.getBody());
+            return false;
+        }
+
+        boolean success = true;
+        for (ScriptConsoleBatch.Result result : batch.results(response.getBody())) {
+            if (result.isSuccess()) {
+                inventory.added(result.getFolderPath(), result.getJobName(),
+                        descriptions.get(result.getFolderPath() + "/" + result.getJobName()));
+                System.out.printf("Job %s %s successfully in %s%n", result.getJobName(), result.getVerb(), result.getFolderPath());
+                String fullName = result.getFolderPath() + "/" + result.getJobName();
+                checkpoint(pending.get(fullName), hashes.get(fullName));
+            } else {
+                System.err.printf("[ERROR] The job %s can not be applied in %s: %s%n",
+                        result.getJobName(), result.getFolderPath(), result.getError());
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    private boolean isUnchanged(String folderPath, String jobName, String fingerprint) {
+        if (fingerprint != null && inventory.contains(folderPath, jobName) &&
+            JobFingerprint.matches(inventory.description(folderPath, jobName), fingerprint)) {
+            System.out.printf("Job %s is unchanged in %s%n", jobName, folderPath);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Nested folders are addressed as /job/a/job/b/job/c, and jobs outside of any folder live at the root.
+     */
+    private String folderUrl(String folderPath) {
+        StringBuilder url = new StringBuilder(controllerUrl);
+        for (String name : folderPath.split("/")) {
+            if (!name.isEmpty()) {
+                url.append("/job/").append(name);
+            }
+        }
+        return url.toString();
+    }
+
+    private String requestCrumb() {
+        HttpResponse<String> response = transport.execute(() -> transport.get(controllerUrl + "/crumbIssuer/api/json"), true);
+        if (!response.isSuccess()) {
+            throw new RuntimeException(String.format("Unable to request a crumb: HTTP %s: %s",
+                    response.getStatus(), response.getStatusText()));
+        }
+        return parseCrumb(response.getBody());
+    }
+
     static String generateCrumb(String controllerUrl, String user, String password) {
-        String response = Unirest.get(controllerUrl + "/crumbIssuer/api/json")
+        return parseCrumb(Unirest.get(controllerUrl + "/crumbIssuer/api/json")
                 .basicAuth(user, password)
                 .asString()
-                .getBody();
+                .getBody());
+    }
+
+    private static String parseCrumb(String response) {
         try {
             // Use ObjectMapper instead of Unirest to avoid using reflection classes that conflicts with GraalVM
             ObjectMapper objectMapper = new ObjectMapper();
@@ -706,12 +1678,84 @@ public class Jenkins implements Callable<Integer> {
         return String.format("%s%s publish .", prefix, isWindowsPlatform ? "mod.exe" : "mod");
     }
 
-    private String createFreestyleScm(Map<String, String> plugins, String scmHost, String branch) {
+    private String createManagedScriptCommand(String phase) {
+        return String.format("sh \"${%s}\" %s", MANAGED_SCRIPT_VARIABLE, phase);
+    }
+
+    /**
+     * Renders the script shared by every ingestion job when {@code --managedScript} is set. The JDK is the only
+     * per-job setting of the preparation steps, so jobs pass it as the second argument of the setup phase.
+     */
+    String createManagedScript() {
+        StringBuilder setup = new StringBuilder();
+        for (String command : new String[]{createFreestyleDownload(), createConfigTenantCommand(), createConfigArtifactsCommand()}) {
+            if (!StringUtils.isBlank(command)) {
+                setup.append(indent(command.trim())).append("\n");
+            }
+        }
+        setup.append(indent(String.format("if [ -n \"$2\" ]; then %s; fi", createConfigJavaCommand("\"$2\""))));
+        String configMavenSettings = createConfigMavenSettingsCommand();
+        if (!StringUtils.isBlank(configMavenSettings)) {
+            setup.append("\n").append(indent(configMavenSettings.trim()));
+        }
+        return Templates.MANAGED_SCRIPT_DEFINITION.format(setup.toString(), createBuildCommand(), createPublishCommand());
+    }
+
+    private static String indent(String command) {
+        return Arrays.stream(command.split("\\r?\\n"))
+                .map(line -> "    " + line)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private void publishManagedScript() {
+        String script = Templates.PUBLISH_MANAGED_SCRIPT_DEFINITION.format(
+                base64(managedScript),
+                base64(MANAGED_SCRIPT_NAME),
+                base64("Generated by mod config jenkins, changes are overwritten on the next run"),
+                base64(createManagedScript()));
+        HttpResponse<String> response = transport.execute(() -> transport.post(controllerUrl + "/scriptText")
+                .field("script", script), true);
+        if (!response.isSuccess() || response.getBody() == null || !response.getBody().contains("Published")) {
+            throw new RuntimeException(String.format("Unable to publish the managed script %s: %s %s",
+                    managedScript, response.getStatus(), response.getBody()));
+        }
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String createFreestyleScm(Map<String, String> plugins, String scmHost, String branch, CloneOptions cloneOptions) {
         return Templates.FREESTYLE_SCM_DEFINITION.format(
                 plugins.get(GIT_PLUGIN),
                 scmHost,
                 gitCredsId,
-                branch);
+                createFreestyleRefspec(branch, cloneOptions),
+                branch,
+                createFreestyleCloneOption(cloneOptions));
+    }
+
+    /**
+     * Honoring the refspec on the initial clone only narrows it when the remote has a refspec, so the one of the
+     * job's branch is configured instead of the default of fetching every branch.
+     */
+    private String createFreestyleRefspec(String branch, CloneOptions cloneOptions) {
+        if (!cloneOptions.isHonorRefspec()) {
+            return "";
+        }
+        return String.format("\n        <refspec>+refs/heads/%1$s:refs/remotes/origin/%1$s</refspec>", escapeXml(branch));
+    }
+
+    private String createFreestyleCloneOption(CloneOptions cloneOptions) {
+        if (cloneOptions.isDefault()) {
+            return "    <extensions/>";
+        }
+        return Templates.FREESTYLE_CLONE_OPTION_DEFINITION.format(
+                String.valueOf(cloneOptions.isShallow()),
+                String.valueOf(cloneOptions.isNoTags()),
+                escapeXml(cloneOptions.getReference()),
+                String.valueOf(Math.max(cloneOptions.getDepth(), 0)),
+                String.valueOf(cloneOptions.isHonorRefspec()));
     }
 
     private String createFreestyleDownload() {
@@ -721,6 +1765,9 @@ public class Jenkins implements Callable<Integer> {
         String downloadURL = getDownloadCLIUrl();
 
         boolean isWindowsPlatform = isWindowsPlatform();
+        if (!StringUtils.isBlank(downloadCLICache)) {
+            return createCachedDownload(downloadURL, isWindowsPlatform);
+        }
         if (isWindowsPlatform) {
             String credentials = "";
             if (StringUtils.isNotBlank(downloadCLICreds)) {
@@ -742,81 +1789,105 @@ public class Jenkins implements Callable<Integer> {
         }
     }
 
+    /**
+     * Downloads the CLI into a cache directory of the agent, keyed by the CLI version and a hash of the download URL,
+     * unless it is already there with a matching checksum. Each build downloads to a file of its own and renames it
+     * into place, so concurrent builds on the same agent can share the cache safely.
+     */
+    private String createCachedDownload(String downloadURL, boolean isWindowsPlatform) {
+        String cacheKey = cliVersion + "-" + JobFingerprint.of(downloadURL).substring(0, 12);
+        String pinned = StringUtils.isBlank(downloadCLISha256) ? "" : downloadCLISha256.trim();
+        if (isWindowsPlatform) {
+            String credentials = "";
+            if (StringUtils.isNotBlank(downloadCLICreds)) {
+                credentials = "$wc.Headers[\"Authorization\"] = string.Format(\"Basic {0}\", " +
+                        "Convert.ToBase64String(Encoding.ASCII.GetBytes(\"$env:CLI_DOWNLOAD_CRED_USR\", \"$env:CLI_DOWNLOAD_CRED_PWD\")))";
+            }
+            return Templates.CACHED_DOWNLOAD_POWERSHELL_DEFINITION.format(
+                    downloadCLICache + "\\" + cacheKey,
+                    pinned.toUpperCase(),
+                    credentials,
+                    downloadURL);
+        }
+        String credentials = "";
+        if (!StringUtils.isBlank(downloadCLICreds)) {
+            credentials = "--user ${CLI_DOWNLOAD_CRED_USR}:${CLI_DOWNLOAD_CRED_PWD} ";
+        }
+        return Templates.CACHED_DOWNLOAD_SHELL_DEFINITION.format(
+                downloadCLICache + "/" + cacheKey,
+                pinned.toLowerCase(),
+                credentials,
+                downloadURL);
+    }
+
     private String createFreestyleSteps(Map<String, String> plugins, String jdkTool, String mavenTool, String gradleTool, String repoStyle, String repoBuildAction, boolean isValidate) {
-        StringBuilder builder = new StringBuilder();
+        List<FreestyleStep> steps = new ArrayList<>();
 
         boolean isWindowsPlatform = isWindowsPlatform();
 
         if (isValidate) {
             if (isWindowsPlatform) {
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(
-                        plugins.get(POWERSHELL_PLUGIN),
+                steps.add(FreestyleStep.script("download patch",
                         "$wc = New-Object System.Net.WebClient\n" +
                         "$wc.Headers[\"Authorization\"] = \"Bearer \\$env:MODERNE_TOKEN\"\n" +
                         "$wc.Headers[\"x-moderne-scmtoken\"] = $env:SCM_TOKEN\n" +
                         "$wc.DownloadFile(\"$patchDownloadUrl\", \"patch.diff\")"
                 ));
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format("git apply patch.diff"));
             } else {
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(
+                steps.add(FreestyleStep.script("download patch",
                         "curl -o patch.diff --request GET --url $patchDownloadUrl --header \"Authorization: Bearer $MODERNE_TOKEN\" --header \"x-moderne-scmtoken: $SCM_TOKEN\""
                 ));
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format("git apply patch.diff"));
             }
+            steps.add(FreestyleStep.script("apply patch", "git apply patch.diff"));
         }
-        String download = createFreestyleDownload();
-        if (!StringUtils.isBlank(download)) {
-            if (isWindowsPlatform) {
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(plugins.get(POWERSHELL_PLUGIN), download));
-            } else {
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(download));
-            }
+        // the managed script bundles every preparation step, so the job only passes its JDK to it
+        boolean isManaged = !isValidate && !StringUtils.isBlank(managedScript);
+        if (isManaged) {
+            steps.add(FreestyleStep.script("setup", createManagedScriptCommand("setup") +
+                                                    (StringUtils.isBlank(jdkTool) ? "" : " '" + jdkTool + "'")));
+        }
+
+        // the cached download redirects output, so it has to be escaped before it goes into the job definition
+        String download = escapeXml(createFreestyleDownload());
+        if (!isManaged && !StringUtils.isBlank(download)) {
+            steps.add(FreestyleStep.script("download", download));
         }
 
         String configTenant = createConfigTenantCommand();
-        if (!isValidate && !StringUtils.isBlank(configTenant)) {
-            if (isWindowsPlatform) {
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(plugins.get(POWERSHELL_PLUGIN), configTenant));
-            } else {
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(configTenant));
-            }
+        if (!isValidate && !isManaged && !StringUtils.isBlank(configTenant)) {
+            steps.add(FreestyleStep.script("config tenant", configTenant));
         }
 
-        if (!isValidate) {
-            if (isWindowsPlatform) {
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(plugins.get(POWERSHELL_PLUGIN), createConfigArtifactsCommand()));
-            } else {
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(createConfigArtifactsCommand()));
-            }
+        if (!isValidate && !isManaged) {
+            steps.add(FreestyleStep.script("config artifacts", createConfigArtifactsCommand()));
         }
 
-        if (!StringUtils.isBlank(jdkTool)) {
-            if (isWindowsPlatform) {
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(plugins.get(POWERSHELL_PLUGIN), createConfigJavaCommand(jdkTool)));
-            } else {
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(createConfigJavaCommand(jdkTool)));
+        if (!isManaged && !StringUtils.isBlank(jdkTool)) {
+            String configJava = createConfigJavaCommand(jdkTool);
+            if (isValidate && validateJobPerHost) {
+                // the JDK is a build parameter of the shared validate job, which may be left empty
+                configJava = isWindowsPlatform ?
+                        String.format("if ($env:%s) { %s }", JDK_PARAMETER, configJava) :
+                        String.format("if [ -n \"${%s}\" ]; then %s; fi", JDK_PARAMETER, configJava);
             }
+            steps.add(FreestyleStep.script("config java", configJava));
         }
 
         String buildCommand = createBuildCommand();
         String configMavenSettings = createConfigMavenSettingsCommand();
-        if (!StringUtils.isBlank(configMavenSettings)) {
-            if (isWindowsPlatform) {
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(plugins.get(POWERSHELL_PLUGIN), configMavenSettings));
-            } else {
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(configMavenSettings));
-            }
+        if (!isManaged && !StringUtils.isBlank(configMavenSettings)) {
+            steps.add(FreestyleStep.script("config maven settings", configMavenSettings));
         }
 
         if (!StringUtils.isBlank(gradleTool)) {
             String buildCommandArray = Arrays.stream(buildCommand.split(" +"))
                     .collect(Collectors.joining("', '", "'", "'"));
 
-            builder.append(Templates.FREESTYLE_GRADLE_DEFINITION.format(
+            steps.add(FreestyleStep.builder(Templates.FREESTYLE_GRADLE_DEFINITION.format(
                     buildCommandArray,
                     plugins.get(GRADLE_PLUGIN),
                     gradleTool
-            ));
+            )));
         } else if (!StringUtils.isBlank(mavenTool)) {
             String[] parts = buildCommand.split(" +");
             if (parts.length < 2) {
@@ -826,29 +1897,68 @@ public class Jenkins implements Callable<Integer> {
             String args = Arrays.stream(Arrays.copyOfRange(parts, 1, parts.length))
                     .map(arg -> String.format("<argument>%s</argument>", arg))
                     .collect(Collectors.joining("\n              "));
-            builder.append(Templates.FREESTYLE_MAVEN_DEFINITION.format(
+            steps.add(FreestyleStep.builder(Templates.FREESTYLE_MAVEN_DEFINITION.format(
                     executable,
                     args,
                     mavenTool
-            ));
+            )));
         } else {
-            if (isWindowsPlatform) {
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(plugins.get(POWERSHELL_PLUGIN), buildCommand));
+            steps.add(FreestyleStep.script("build", isManaged ? createManagedScriptCommand("build") : buildCommand));
+        }
+
+        if (!isValidate) {
+            steps.add(FreestyleStep.script("publish", isManaged ? createManagedScriptCommand("publish") : createPublishCommand()));
+        }
+
+        return createFreestyleBuilders(plugins, steps);
+    }
+
+    /**
+     * Renders one builder per step or, with --fuseScriptSteps, a single builder for every run of consecutive
+     * script steps, which stops at the first failing phase.
+     */
+    private String createFreestyleBuilders(Map<String, String> plugins, List<FreestyleStep> steps) {
+        StringBuilder builder = new StringBuilder();
+        List<FreestyleStep> scripts = new ArrayList<>();
+        for (FreestyleStep step : steps) {
+            if (step.command == null) {
+                appendFusedScript(builder, plugins, scripts);
+                builder.append(step.definition);
+            } else if (fuseScriptSteps) {
+                scripts.add(step);
             } else {
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(buildCommand));
+                appendScript(builder, plugins, step.command);
             }
         }
-        builder.append("\n");
+        appendFusedScript(builder, plugins, scripts);
+        return builder.toString();
+    }
 
-        if (!isValidate) {
+    private void appendFusedScript(StringBuilder builder, Map<String, String> plugins, List<FreestyleStep> scripts) {
+        if (scripts.isEmpty()) {
+            return;
+        }
+        boolean isWindowsPlatform = isWindowsPlatform();
+        StringBuilder script = new StringBuilder(isWindowsPlatform ? "$ErrorActionPreference = 'Stop'" : "set -e");
+        for (FreestyleStep step : scripts) {
             if (isWindowsPlatform) {
-                builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(plugins.get(POWERSHELL_PLUGIN), createPublishCommand()));
+                // native commands do not honor $ErrorActionPreference, so their exit code is checked after each phase
+                script.append(String.format("%nWrite-Host '[mod-connect] %s'%n%s%nif ($LASTEXITCODE) { exit $LASTEXITCODE }",
+                        step.phase, step.command));
             } else {
-                builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(createPublishCommand()));
+                script.append(String.format("%necho '[mod-connect] %s'%n%s", step.phase, step.command));
             }
         }
+        appendScript(builder, plugins, script.toString());
+        scripts.clear();
+    }
 
-        return builder.toString();
+    private void appendScript(StringBuilder builder, Map<String, String> plugins, String command) {
+        if (isWindowsPlatform()) {
+            builder.append(Templates.FREESTYLE_POWERSHELL_DEFINITION.format(plugins.get(POWERSHELL_PLUGIN), command));
+        } else {
+            builder.append(Templates.FREESTYLE_SHELL_DEFINITION.format(command));
+        }
     }
 
     private String createFreestyleCredentials(Map<String, String> plugins) {
@@ -895,30 +2005,50 @@ public class Jenkins implements Callable<Integer> {
         }
     }
 
-    private String createFreestyleConfigFiles(Map<String, String> plugins) {
+    private String createFreestyleConfigFiles(Map<String, String> plugins, boolean isValidate) {
         StringBuilder files = new StringBuilder();
         if (!StringUtils.isBlank(mavenSettingsConfigFileId)) {
-            files.append(Templates.FREESTYLE_MAVEN_SETTINGS_DEFINITION.format(
-                    plugins.get(CONFIG_FILE_PLUGIN),
-                    mavenSettingsConfigFileId
-            ));
+            files.append(Templates.FREESTYLE_MANAGED_FILE_DEFINITION.format(mavenSettingsConfigFileId, "MODERNE_MVN_SETTINGS_XML"));
+        }
+        if (!isValidate && !StringUtils.isBlank(managedScript)) {
+            files.append(Templates.FREESTYLE_MANAGED_FILE_DEFINITION.format(managedScript, MANAGED_SCRIPT_VARIABLE));
+        }
+        if (files.length() == 0) {
+            return "";
         }
-        return files.toString();
+        return Templates.FREESTYLE_CONFIG_FILES_DEFINITION.format(plugins.get(CONFIG_FILE_PLUGIN), files.toString());
     }
 
-    private String createFreestyleCleanup(Map<String, String> plugins) {
-        if (workspaceCleanup) {
-            return Templates.FREESTYLE_CLEANUP_DEFINITION.format(plugins.get(CLEAN_UP_PLUGIN));
+    private String createFreestyleCleanup(Map<String, String> plugins, boolean isValidate) {
+        if (workspaceCleanup || incrementalWorkspace && isValidate) {
+            return Templates.FREESTYLE_CLEANUP_DEFINITION.format(plugins.get(CLEAN_UP_PLUGIN), "      <patterns class=\"empty-list\"/>", "false");
+        }
+        if (incrementalWorkspace) {
+            String patterns = Arrays.stream(INCREMENTAL_CLEANUP_PATTERNS)
+                    .map(Templates.FREESTYLE_CLEANUP_PATTERN_DEFINITION::format)
+                    .collect(Collectors.joining("\n", "      <patterns>\n", "\n      </patterns>"));
+            return Templates.FREESTYLE_CLEANUP_DEFINITION.format(plugins.get(CLEAN_UP_PLUGIN), patterns, "true");
         }
         return "";
     }
 
+    private String createFreestyleTrigger(boolean isValidateJob) {
+        if (isValidateJob) {
+            return Templates.FREESTYLE_TIMER_TRIGGER_DEFINITION.format("");
+        }
+        if (pollScm) {
+            // the git plugin compares the remote head with the revision of the last build and only builds on a change
+            return Templates.FREESTYLE_SCM_TRIGGER_DEFINITION.format(scheduledAt);
+        }
+        return Templates.FREESTYLE_TIMER_TRIGGER_DEFINITION.format(scheduledAt);
+    }
+
     private String createFreestyleJob(String params, String scm, String assignedNode, String steps, String cleanup, String credentials, String configFiles, String buildNameSetter, boolean isValidateJob) {
         return Templates.FREESTYLE_JOB_DEFINITION.format(
                 params,
                 scm,
                 assignedNode,
-                isValidateJob ? "" : scheduledAt,
+                createFreestyleTrigger(isValidateJob),
                 steps,
                 cleanup,
                 credentials,
@@ -927,6 +2057,94 @@ public class Jenkins implements Callable<Integer> {
         );
     }
 
+    /**
+     * A single pipeline that runs the same steps as the freestyle jobs for every repository it is given.
+     */
+    private String createOrchestratorJob(Map<String, String> plugins, String repositories) {
+        boolean isWindowsPlatform = isWindowsPlatform();
+
+        List<String> credentials = new ArrayList<>();
+        credentials.add(String.format("usernamePassword(credentialsId: %s, usernameVariable: 'ARTIFACTS_PUBLISH_CRED_USR', passwordVariable: 'ARTIFACTS_PUBLISH_CRED_PWD')",
+                groovyString(publishCredsId)));
+        if (tenant != null && !StringUtils.isBlank(tenant.moderneToken)) {
+            credentials.add(String.format("string(credentialsId: %s, variable: 'MODERNE_TOKEN')", groovyString(tenant.moderneToken)));
+        }
+        if (!StringUtils.isBlank(downloadCLICreds)) {
+            credentials.add(String.format("usernamePassword(credentialsId: %s, usernameVariable: 'CLI_DOWNLOAD_CRED_USR', passwordVariable: 'CLI_DOWNLOAD_CRED_PWD')",
+                    groovyString(downloadCLICreds)));
+        }
+        if (extraCredentials != null) {
+            for (Map.Entry<String, String> entry : extraCredentials.entrySet()) {
+                String[] variables = entry.getValue().split(":");
+                if (variables.length == 1) {
+                    credentials.add(String.format("string(credentialsId: %s, variable: %s)",
+                            groovyString(entry.getKey()), groovyString(variables[0])));
+                } else if (variables.length == 2) {
+                    credentials.add(String.format("usernamePassword(credentialsId: %s, usernameVariable: %s, passwordVariable: %s)",
+                            groovyString(entry.getKey()), groovyString(variables[0]), groovyString(variables[1])));
+                }
+            }
+        }
+
+        String mavenSettings = StringUtils.isBlank(mavenSettingsConfigFileId) ? "body()" : String.format(
+                "configFileProvider([configFile(fileId: %s, variable: 'MODERNE_MVN_SETTINGS_XML')]) {\n" +
+                "        body()\n" +
+                "    }", groovyString(mavenSettingsConfigFileId));
+
+        List<String> setup = new ArrayList<>();
+        setup.add(createFreestyleDownload());
+        setup.add(createConfigTenantCommand());
+        setup.add(createConfigArtifactsCommand());
+        List<String> build = new ArrayList<>();
+        build.add(createConfigMavenSettingsCommand());
+        build.add(createBuildCommand());
+        build.add(createPublishCommand());
+
+        String pipeline = Templates.ORCHESTRATOR_PIPELINE_DEFINITION.format(
+                String.valueOf(orchestratorParallelism),
+                isWindowsPlatform ? "powershell" : "sh",
+                mavenSettings,
+                StringUtils.isBlank(agent) ? "node" : "node(" + groovyString(agent) + ")",
+                groovyString(gitCredsId),
+                credentials.stream().collect(Collectors.joining(", ", "[", "]")),
+                groovyList(setup),
+                groovyString(createConfigJavaCommand("")),
+                groovyList(build),
+                createOrchestratorCleanup()
+        );
+        return Templates.ORCHESTRATOR_JOB_DEFINITION.format(
+                plugins.get(WORKFLOW_JOB_PLUGIN),
+                escapeXml(repositories),
+                scheduledAt,
+                plugins.get(WORKFLOW_CPS_PLUGIN),
+                escapeXml(pipeline)
+        );
+    }
+
+    private static String groovyList(List<String> commands) {
+        return commands.stream()
+                .filter(StringUtils::isNotBlank)
+                .map(Jenkins::groovyString)
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static String groovyString(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'").replace("\n", "\\n") + "'";
+    }
+
+    private String createOrchestratorCleanup() {
+        if (workspaceCleanup) {
+            return "dir(name) {\n                        deleteDir()\n                    }";
+        } else if (incrementalWorkspace) {
+            return "dir(name + '/.moderne/build') {\n                        deleteDir()\n                    }";
+        }
+        return "";
+    }
+
+    private static String escapeXml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
     private boolean isWindowsPlatform() {
         return PLATFORM_WINDOWS.equals(platform);
     }
@@ -938,4 +2156,55 @@ public class Jenkins implements Callable<Integer> {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * A job whose configuration is rendered only once a worker gets to apply it.
+     */
+    enum PruneMode {
+        NONE,
+        DELETE,
+        DISABLE
+    }
+
+    private static class PendingJob {
+        private final int lineNumber;
+        private final String folderPath;
+        private final String jobName;
+        private final Supplier<String> config;
+
+        private PendingJob(int lineNumber, String folderPath, String jobName, Supplier<String> config) {
+            this.lineNumber = lineNumber;
+            this.folderPath = folderPath;
+            this.jobName = jobName;
+            this.config = config;
+        }
+
+        private String fullName() {
+            return folderPath + "/" + jobName;
+        }
+    }
+
+    /**
+     * A build step of a freestyle job: either a script run by the platform's shell, named after its phase, or the
+     * definition of a builder provided by a plugin.
+     */
+    private static class FreestyleStep {
+        private final String phase;
+        private final String command;
+        private final String definition;
+
+        private FreestyleStep(String phase, String command, String definition) {
+            this.phase = phase;
+            this.command = command;
+            this.definition = definition;
+        }
+
+        private static FreestyleStep script(String phase, String command) {
+            return new FreestyleStep(phase, command, null);
+        }
+
+        private static FreestyleStep builder(String definition) {
+            return new FreestyleStep(null, null, definition);
+        }
+    }
 }
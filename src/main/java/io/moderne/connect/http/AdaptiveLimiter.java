@@ -0,0 +1,141 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of requests in flight against a server and adapts that bound to how the server copes with the
+ * load (additive increase, multiplicative decrease). The limit grows while responses come back quickly, backs off
+ * gently when latency rises well above the best latency observed so far, and is halved when the server signals
+ * overload (429, 5xx or a failed call).
+ * <p>
+ * Latency is tracked per kind of request, as a job update is always much slower than a folder listing and must
+ * not be mistaken for congestion. It is smoothed, so that a single slow response does not shrink the limit.
+ */
+public class AdaptiveLimiter {
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double OVERLOAD_BACKOFF = 0.5;
+    private static final double BASELINE_DRIFT = 1.01;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private boolean slowStart = true;
+    private final Map<String, Latency> latencies = new HashMap<>();
+
+    public AdaptiveLimiter(int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid concurrency bounds: min %d, max %d", minLimit, maxLimit));
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        // Half of the maximum, as a healthy controller handles it and slow start reaches the maximum in a round trip
+        this.limit = Math.max(minLimit, maxLimit / 2);
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                released.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long latency, TimeUnit unit, boolean overloaded) {
+        release("", latency, unit, overloaded);
+    }
+
+    /**
+     * @param kind The kind of request, such as its method and the last segment of its path, whose latency is only
+     *             compared to that of requests of the same kind.
+     */
+    public void release(String kind, long latency, TimeUnit unit, boolean overloaded) {
+        long latencyNanos = unit.toNanos(latency);
+        lock.lock();
+        try {
+            inFlight--;
+            if (overloaded) {
+                slowStart = false;
+                limit = Math.max(minLimit, limit * OVERLOAD_BACKOFF);
+            } else {
+                Latency observed = latencies.get(kind);
+                if (observed == null) {
+                    observed = new Latency(latencyNanos);
+                    latencies.put(kind, observed);
+                }
+                if (observed.record(latencyNanos) > observed.baselineNanos * LATENCY_TOLERANCE) {
+                    slowStart = false;
+                    limit = Math.max(minLimit, limit * LATENCY_BACKOFF);
+                } else {
+                    // Until the first sign of congestion the limit doubles every round trip, then it grows by one
+                    limit = Math.min(maxLimit, limit + (slowStart ? 1 : 1 / limit));
+                }
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static boolean isOverloaded(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private static class Latency {
+        private double baselineNanos;
+        private double smoothedNanos;
+
+        private Latency(long latencyNanos) {
+            this.baselineNanos = latencyNanos;
+            this.smoothedNanos = latencyNanos;
+        }
+
+        /**
+         * @return The smoothed latency, including the given one.
+         */
+        private double record(long latencyNanos) {
+            smoothedNanos += SMOOTHING * (latencyNanos - smoothedNanos);
+            // Let old minimums age out so that a single lucky response does not hold the limit down forever
+            baselineNanos = Math.min(latencyNanos, baselineNanos * BASELINE_DRIFT);
+            return smoothedNanos;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.http;
+
+import kong.unirest.HeaderNames;
+import kong.unirest.HttpRequest;
+import kong.unirest.HttpResponse;
+
+/**
+ * Adds credentials to the requests of an {@link HttpTransport}.
+ */
+public interface Authenticator {
+
+    void authenticate(HttpRequest<?> request);
+
+    /**
+     * Called with every response. Returning {@code true} means the request was rejected because of credentials that
+     * have since been refreshed, and that it should be sent once more.
+     */
+    default boolean refresh(HttpRequest<?> request, HttpResponse<String> response) {
+        return false;
+    }
+
+    static Authenticator none() {
+        return request -> {
+        };
+    }
+
+    static Authenticator basic(String user, String password) {
+        return request -> request.basicAuth(user, password);
+    }
+
+    static Authenticator bearer(String token) {
+        return request -> request.header(HeaderNames.AUTHORIZATION, "Bearer " + token);
+    }
+}
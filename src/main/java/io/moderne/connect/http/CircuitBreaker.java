@@ -0,0 +1,91 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pauses every caller once too many of the recent calls to a server have failed, giving a struggling or restarting
+ * server time to recover instead of piling more requests on it. After the pause, calls are let through again and
+ * the failure rate is measured from scratch.
+ */
+public class CircuitBreaker {
+    private final boolean[] outcomes;
+    private final int failureThreshold;
+    private final long pauseNanos;
+
+    private int next;
+    private int recorded;
+    private int failures;
+    private long closesAt;
+
+    /**
+     * @param window      the number of recent calls the failure rate is measured over
+     * @param failureRate the rate of failed calls in the window at which the breaker opens
+     * @param pause       how long callers are paused once the breaker opens
+     */
+    public CircuitBreaker(int window, double failureRate, long pause, TimeUnit unit) {
+        this.outcomes = new boolean[window];
+        this.failureThreshold = Math.max(1, (int) Math.ceil(window * failureRate));
+        this.pauseNanos = unit.toNanos(pause);
+        this.closesAt = System.nanoTime();
+    }
+
+    public void awaitClosed() throws InterruptedException {
+        while (true) {
+            long remaining;
+            synchronized (this) {
+                remaining = closesAt - System.nanoTime();
+            }
+            if (remaining <= 0) {
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    /**
+     * @return {@code true} when this outcome made the breaker open
+     */
+    public synchronized boolean record(boolean failed) {
+        if (System.nanoTime() - closesAt < 0) {
+            // Calls that were already in flight when the breaker opened do not count towards the next window
+            return false;
+        }
+        if (recorded == outcomes.length && outcomes[next]) {
+            failures--;
+        }
+        outcomes[next] = failed;
+        next = (next + 1) % outcomes.length;
+        recorded = Math.min(recorded + 1, outcomes.length);
+        if (failed) {
+            failures++;
+        }
+
+        if (recorded == outcomes.length && failures >= failureThreshold) {
+            closesAt = System.nanoTime() + pauseNanos;
+            next = 0;
+            recorded = 0;
+            failures = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public long getPause(TimeUnit unit) {
+        return unit.convert(pauseNanos, TimeUnit.NANOSECONDS);
+    }
+}
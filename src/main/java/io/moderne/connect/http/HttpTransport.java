@@ -0,0 +1,176 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.http;
+
+import kong.unirest.*;
+import lombok.Builder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The HTTP client shared by all requests a command sends. It owns a connection pool sized to the number of requests
+ * that may be in flight, so that connections are reused rather than opened per request, and is where authentication,
+ * concurrency limits, retries and the circuit breaker are applied.
+ */
+public class HttpTransport implements AutoCloseable {
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+    private static final long CONNECTION_TTL_MINUTES = 5;
+
+    private final UnirestInstance unirest;
+    private final Authenticator authenticator;
+    private final AdaptiveLimiter limiter;
+    private final RetryPolicy retryPolicy;
+
+    private final RateLimiter rateLimiter;
+
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * @param maxConnections the size of the connection pool, which should match the number of requests that may be in
+     *                       flight. A command sends all of its requests to a single host, which may use all of them.
+     * @param limiter        bounds the requests in flight, defaults to {@code maxConnections}
+     * @param retryPolicy    applied to requests that can safely be repeated, defaults to no retries
+     */
+    @Builder
+    private HttpTransport(Authenticator authenticator,
+                          int maxConnections,
+                          int connectTimeoutMillis,
+                          int readTimeoutMillis,
+                          AdaptiveLimiter limiter,
+                          RateLimiter rateLimiter,
+                          RetryPolicy retryPolicy,
+                          CircuitBreaker circuitBreaker) {
+        int connections = maxConnections > 0 ? maxConnections : DEFAULT_MAX_CONNECTIONS;
+        this.authenticator = authenticator == null ? Authenticator.none() : authenticator;
+        this.limiter = limiter == null ? new AdaptiveLimiter(connections, connections) : limiter;
+        this.rateLimiter = rateLimiter;
+        this.retryPolicy = retryPolicy == null ? new RetryPolicy(0, 0, 0) : retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+
+        this.unirest = Unirest.spawnInstance();
+        Config config = unirest.config()
+                .concurrency(connections, connections)
+                .connectionTTL(CONNECTION_TTL_MINUTES, TimeUnit.MINUTES)
+                // Retries are decided here, where it is known which requests can safely be repeated
+                .automaticRetries(false);
+        if (connectTimeoutMillis > 0) {
+            config.connectTimeout(connectTimeoutMillis);
+        }
+        if (readTimeoutMillis > 0) {
+            config.socketTimeout(readTimeoutMillis);
+        }
+    }
+
+    public GetRequest get(String url) {
+        return unirest.get(url);
+    }
+
+    public HttpRequestWithBody post(String url) {
+        return unirest.post(url);
+    }
+
+    /**
+     * Sends a request built by the supplier, which is called again for every retry.
+     *
+     * @param idempotent whether the request can be repeated without side effects should an attempt fail
+     */
+    public HttpResponse<String> execute(Supplier<? extends HttpRequest<?>> request, boolean idempotent) {
+        boolean refreshed = false;
+        int attempt = 0;
+        while (true) {
+            HttpRequest<?> attemptRequest = request.get();
+            authenticator.authenticate(attemptRequest);
+
+            HttpResponse<String> response = null;
+            UnirestException failure = null;
+            try {
+                if (circuitBreaker != null) {
+                    circuitBreaker.awaitClosed();
+                }
+                response = send(attemptRequest);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnirestException(e);
+            } catch (UnirestException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                failure = e;
+            }
+
+            if (response != null && !refreshed && authenticator.refresh(attemptRequest, response)) {
+                refreshed = true;
+                continue;
+            }
+
+            if (circuitBreaker != null &&
+                circuitBreaker.record(response == null || AdaptiveLimiter.isOverloaded(response.getStatus()))) {
+                System.err.printf("[WARN] Too many requests are failing, pausing for %d seconds%n",
+                        circuitBreaker.getPause(TimeUnit.SECONDS));
+            }
+
+            boolean retryable = response == null || RetryPolicy.isTransient(response.getStatus());
+            if (!idempotent || !retryable || !retryPolicy.canRetry(attempt)) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return response;
+            }
+            try {
+                Thread.sleep(retryPolicy.delayMillis(attempt++));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnirestException(e);
+            }
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest<?> request) throws InterruptedException {
+        limiter.acquire();
+        long start = System.nanoTime();
+        boolean overloaded = true;
+        try {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+                start = System.nanoTime();
+            }
+            HttpResponse<String> response = request.asString();
+            overloaded = AdaptiveLimiter.isOverloaded(response.getStatus());
+            return response;
+        } finally {
+            limiter.release(requestKind(request), System.nanoTime() - start, TimeUnit.NANOSECONDS, overloaded);
+        }
+    }
+
+    /**
+     * The method and the last segment of the path, such as "POST config.xml" or "GET json", which tells apart requests
+     * of very different cost without telling apart each job.
+     */
+    static String requestKind(HttpRequest<?> request) {
+        String path = request.getUrl();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return request.getHttpMethod() + " " + path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public void close() {
+        unirest.close();
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only record of the jobs a run has applied, so that an interrupted run can be resumed without repeating
+ * them. Each line holds the CSV line number, the full name of the job and the hash of the configuration that was
+ * applied, so a job is only skipped on resume while both its row and its configuration are unchanged. Every entry
+ * is flushed as it is written, and a line torn by a crash simply never matches.
+ */
+public class CheckpointJournal implements Closeable {
+    private final Set<String> applied = ConcurrentHashMap.newKeySet();
+    private final BufferedWriter writer;
+
+    /**
+     * @param resume Whether to keep the entries of a previous run, or to start a new journal.
+     */
+    public CheckpointJournal(Path file, boolean resume) throws IOException {
+        if (resume && Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    applied.add(line);
+                }
+            }
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public boolean isApplied(int lineNumber, String jobName, String hash) {
+        return applied.contains(entry(lineNumber, jobName, hash));
+    }
+
+    public synchronized void applied(int lineNumber, String jobName, String hash) throws IOException {
+        String entry = entry(lineNumber, jobName, hash);
+        if (applied.add(entry)) {
+            writer.write(entry);
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    public int size() {
+        return applied.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static String entry(int lineNumber, String jobName, String hash) {
+        return lineNumber + "\t" + jobName + "\t" + hash;
+    }
+}
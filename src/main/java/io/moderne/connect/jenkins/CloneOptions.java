@@ -0,0 +1,104 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The clone options of the Git plugin for a job: a shallow clone of a given depth, skipping tags, honoring the
+ * refspec on the initial clone and borrowing objects from a reference repository on the agent. A row of the CSV file
+ * can override the defaults with a {@code ;} separated list such as {@code depth=1;noTags;reference=/cache/repo.git},
+ * where a flag can also be turned off with {@code noTags=false}.
+ */
+public final class CloneOptions {
+    private final int depth;
+    private final boolean noTags;
+    private final boolean honorRefspec;
+    private final String reference;
+
+    public CloneOptions(int depth, boolean noTags, boolean honorRefspec, String reference) {
+        this.depth = depth;
+        this.noTags = noTags;
+        this.honorRefspec = honorRefspec;
+        this.reference = reference == null ? "" : reference;
+    }
+
+    public CloneOptions withOverrides(String overrides) {
+        if (StringUtils.isBlank(overrides)) {
+            return this;
+        }
+        int depth = this.depth;
+        boolean noTags = this.noTags;
+        boolean honorRefspec = this.honorRefspec;
+        String reference = this.reference;
+        for (String option : overrides.split(";")) {
+            String[] parts = option.trim().split("=", 2);
+            String name = parts[0].trim();
+            String value = parts.length > 1 ? parts[1].trim() : null;
+            switch (name) {
+                case "":
+                    break;
+                case "depth":
+                    try {
+                        depth = Integer.parseInt(value == null ? "" : value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid clone depth: " + value);
+                    }
+                    break;
+                case "noTags":
+                    noTags = value == null || Boolean.parseBoolean(value);
+                    break;
+                case "honorRefspec":
+                    honorRefspec = value == null || Boolean.parseBoolean(value);
+                    break;
+                case "reference":
+                    reference = value == null ? "" : value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown clone option: " + name +
+                                                       ". The possible options are: depth, noTags, honorRefspec, or reference");
+            }
+        }
+        return new CloneOptions(depth, noTags, honorRefspec, reference);
+    }
+
+    /**
+     * Whether the Git plugin defaults apply, in which case no clone option is configured at all.
+     */
+    public boolean isDefault() {
+        return depth <= 0 && !noTags && !honorRefspec && reference.isEmpty();
+    }
+
+    public boolean isShallow() {
+        return depth > 0;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean isNoTags() {
+        return noTags;
+    }
+
+    public boolean isHonorRefspec() {
+        return honorRefspec;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+}
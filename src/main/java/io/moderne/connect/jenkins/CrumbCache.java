@@ -0,0 +1,77 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import kong.unirest.HttpResponse;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the CSRF crumb of the current Jenkins web session. Jenkins binds a crumb to the session cookie it was
+ * issued with, so a single crumb can be shared by every worker thread and only needs to be fetched again once
+ * the controller rejects it.
+ */
+public class CrumbCache {
+    private static final String NO_VALID_CRUMB = "No valid crumb";
+
+    private final Supplier<String> issuer;
+    // Not a monitor, so that virtual threads waiting for the crumb do not pin their carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile String crumb;
+
+    public CrumbCache(Supplier<String> issuer) {
+        this.issuer = issuer;
+    }
+
+    public String get() {
+        String current = crumb;
+        if (current == null) {
+            lock.lock();
+            try {
+                current = crumb;
+                if (current == null) {
+                    current = issuer.get();
+                    crumb = current;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Forgets the rejected crumb so that the next caller fetches a new one. If another thread already replaced it
+     * in the meantime, the newer crumb is kept.
+     */
+    public void invalidate(String rejected) {
+        lock.lock();
+        try {
+            if (rejected != null && rejected.equals(crumb)) {
+                crumb = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static boolean isRejected(HttpResponse<String> response) {
+        return response.getStatus() == 403 &&
+               response.getBody() != null &&
+               response.getBody().contains(NO_VALID_CRUMB);
+    }
+}
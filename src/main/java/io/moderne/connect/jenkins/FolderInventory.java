@@ -0,0 +1,124 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A snapshot of the jobs in each Jenkins folder, taken with a single listing per folder so that workers can
+ * decide between creating, updating and deleting a job without asking the controller about it first. Each job is
+ * kept together with its description, which is where the fingerprint of its configuration is recorded. The
+ * subfolders found by the same listing are kept too, so that orphans can be looked for in every folder. When several
+ * threads ask for the same folder at once, one of them lists it while the others wait for the outcome.
+ */
+public class FolderInventory {
+    private final Function<String, Listing> lister;
+    private final ConcurrentMap<String, CompletableFuture<Listing>> listings = new ConcurrentHashMap<>();
+
+    public FolderInventory(Function<String, Listing> lister) {
+        this.lister = lister;
+    }
+
+    public int size(String folderPath) {
+        return jobs(folderPath).size();
+    }
+
+    public boolean contains(String folderPath, String jobName) {
+        return jobs(folderPath).containsKey(jobName);
+    }
+
+    public Set<String> jobNames(String folderPath) {
+        return new HashSet<>(jobs(folderPath).keySet());
+    }
+
+    /**
+     * @return the names of the folders directly within the folder, as of its listing
+     */
+    public Set<String> subfolders(String folderPath) {
+        Set<String> folders = listing(folderPath).folders;
+        return new TreeSet<>(folders == null ? Collections.emptySet() : folders);
+    }
+
+    public String description(String folderPath, String jobName) {
+        return jobs(folderPath).get(jobName);
+    }
+
+    public void added(String folderPath, String jobName, String description) {
+        jobs(folderPath).put(jobName, description == null ? "" : description);
+    }
+
+    public void removed(String folderPath, String jobName) {
+        jobs(folderPath).remove(jobName);
+    }
+
+    private Map<String, String> jobs(String folderPath) {
+        return listing(folderPath).jobs;
+    }
+
+    private Listing listing(String folderPath) {
+        CompletableFuture<Listing> listed = new CompletableFuture<>();
+        CompletableFuture<Listing> existing = listings.putIfAbsent(folderPath, listed);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        // The folder is listed outside of the map, so that listing it does not hold up the other folders
+        try {
+            Listing listing = lister.apply(folderPath);
+            Listing snapshot = new Listing(new ConcurrentHashMap<>(listing.jobs), listing.folders);
+            listed.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            // Callers already waiting fail the same way, while later callers list the folder again
+            listings.remove(folderPath, listed);
+            listed.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * The items of a folder: its jobs, each with its description, and its subfolders.
+     */
+    public static class Listing {
+        private final Map<String, String> jobs;
+        private final Set<String> folders;
+
+        public Listing(Map<String, String> jobs, Set<String> folders) {
+            this.jobs = jobs;
+            this.folders = folders;
+        }
+
+        public Map<String, String> getJobs() {
+            return jobs;
+        }
+
+        public Set<String> getFolders() {
+            return folders;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Makes sure that folders exist, checking each folder path against the controller at most once per run. Nested
+ * paths such as {@code a/b/c} are ensured from the outermost folder inwards. When several threads ask for the same
+ * folder at once, one of them checks and creates it while the others wait for the outcome.
+ */
+public class FolderManager {
+    private final Predicate<String> exists;
+    private final Consumer<String> create;
+    private final ConcurrentMap<String, CompletableFuture<Void>> folders = new ConcurrentHashMap<>();
+
+    public FolderManager(Predicate<String> exists, Consumer<String> create) {
+        this.exists = exists;
+        this.create = create;
+    }
+
+    public void ensure(String folderPath) {
+        String parent = null;
+        for (String name : folderPath.split("/")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            String folder = parent == null ? name : parent + "/" + name;
+            ensureFolder(folder);
+            parent = folder;
+        }
+    }
+
+    private void ensureFolder(String folder) {
+        CompletableFuture<Void> ensured = new CompletableFuture<>();
+        CompletableFuture<Void> existing = folders.putIfAbsent(folder, ensured);
+        if (existing != null) {
+            try {
+                existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            return;
+        }
+        try {
+            if (!exists.test(folder)) {
+                create.accept(folder);
+            }
+            ensured.complete(null);
+        } catch (RuntimeException e) {
+            // Callers waiting for the same folder fail the same way rather than trying again
+            ensured.completeExceptionally(e);
+            throw e;
+        }
+    }
+}
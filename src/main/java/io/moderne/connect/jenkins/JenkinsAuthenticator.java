@@ -0,0 +1,57 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import io.moderne.connect.http.Authenticator;
+import kong.unirest.HttpMethod;
+import kong.unirest.HttpRequest;
+import kong.unirest.HttpResponse;
+
+/**
+ * Authenticates with basic credentials and, when the controller requires one, adds the session crumb to the
+ * requests that are subject to CSRF protection.
+ */
+public class JenkinsAuthenticator implements Authenticator {
+    public static final String CRUMB_HEADER = "Jenkins-Crumb";
+
+    private final String user;
+    private final String secret;
+
+    private final CrumbCache crumbs;
+
+    public JenkinsAuthenticator(String user, String secret, CrumbCache crumbs) {
+        this.user = user;
+        this.secret = secret;
+        this.crumbs = crumbs;
+    }
+
+    @Override
+    public void authenticate(HttpRequest<?> request) {
+        request.basicAuth(user, secret);
+        if (crumbs != null && !HttpMethod.GET.equals(request.getHttpMethod())) {
+            request.header(CRUMB_HEADER, crumbs.get());
+        }
+    }
+
+    @Override
+    public boolean refresh(HttpRequest<?> request, HttpResponse<String> response) {
+        if (crumbs == null || !CrumbCache.isRejected(response)) {
+            return false;
+        }
+        crumbs.invalidate(request.getHeaders().getFirst(CRUMB_HEADER));
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import io.moderne.connect.utils.TextBlock;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes jobs to a Job DSL script instead of sending them to a controller, so that a seed job, or Configuration as
+ * Code at startup, creates all of them at once. Files ending in .yml or .yaml are written as a Configuration as Code
+ * {@code jobs} entry wrapping the same script. Jobs are written as they are added, so the export never holds more
+ * than one job in memory.
+ * <p>
+ * Groovy compiles the statements of a script into a single method, and the JVM limits a method to 64KB of bytecode
+ * and a class to 65535 constants, which a few thousand jobs would exceed. Jobs are therefore defined by classes of
+ * their own, each holding a bounded number of them.
+ */
+public class JobDslExport implements Closeable {
+    private static final String HEADER_TEMPLATE = "cli/jenkins/job_dsl_header.groovy.template";
+    private static final String YAML_INDENT = "      ";
+    private static final String PIPELINE_ROOT = "<flow-definition";
+    private static final int JOBS_PER_CLASS = 500;
+
+    private final BufferedWriter writer;
+    private final String indent;
+    private final int jobsPerClass;
+    private final Set<String> folders = new HashSet<>();
+    private int jobs;
+    private int classes;
+    private int jobsInClass;
+
+    public JobDslExport(Path file) throws IOException {
+        this(file, JOBS_PER_CLASS);
+    }
+
+    JobDslExport(Path file, int jobsPerClass) throws IOException {
+        this.jobsPerClass = jobsPerClass;
+        String fileName = file.getFileName().toString();
+        boolean yaml = fileName.endsWith(".yml") || fileName.endsWith(".yaml");
+        this.indent = yaml ? YAML_INDENT : "";
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        if (yaml) {
+            writer.write("jobs:\n  - script: |\n");
+        }
+        for (String line : TextBlock.textBlock(HEADER_TEMPLATE).split("\n", -1)) {
+            line(line);
+        }
+    }
+
+    public void job(String folderPath, String jobName, String config) throws IOException {
+        if (jobsInClass == 0) {
+            classes++;
+            line("class Jobs" + classes + " {");
+            line("    static void define(dsl) {");
+        }
+        String parent = "";
+        for (String name : folderPath.split("/")) {
+            if (!name.isEmpty()) {
+                parent = parent.isEmpty() ? name : parent + "/" + name;
+                if (folders.add(parent)) {
+                    line("        dsl.folder('" + quote(parent) + "')");
+                }
+            }
+        }
+        String fullName = parent.isEmpty() ? jobName : parent + "/" + jobName;
+        line("        dsl.fromXml(dsl." + jobType(config) + "('" + quote(fullName) + "'), '" +
+             Base64.getEncoder().encodeToString(config.getBytes(StandardCharsets.UTF_8)) + "')");
+        jobs++;
+        if (++jobsInClass == jobsPerClass) {
+            endClass();
+        }
+    }
+
+    /**
+     * Defines a Config File Provider custom file, such as the script shared by every ingestion job.
+     */
+    public void customConfig(String id, String name, String content) throws IOException {
+        endClass();
+        line("configFiles {");
+        line("    customConfig {");
+        line("        id('" + quote(id) + "')");
+        line("        name('" + quote(name) + "')");
+        line("        content(decode('" + Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8)) + "'))");
+        line("    }");
+        line("}");
+    }
+
+    public int getJobs() {
+        return jobs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            endClass();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void endClass() throws IOException {
+        if (jobsInClass > 0) {
+            line("    }");
+            line("}");
+            line("Jobs" + classes + ".define(this)");
+            jobsInClass = 0;
+        }
+    }
+
+    /**
+     * The Job DSL method creating a job of the type given by the root element of its configuration, as the
+     * configuration replaces the content of the job but not its type.
+     */
+    static String jobType(String config) {
+        int start = config.startsWith("<?") ? config.indexOf("?>") + 2 : 0;
+        return config.startsWith(PIPELINE_ROOT, config.indexOf('<', start)) ? "pipelineJob" : "freeStyleJob";
+    }
+
+    private void line(String line) throws IOException {
+        writer.write(line.isEmpty() ? line : indent + line);
+        writer.write('\n');
+    }
+
+    private static String quote(String value) {
+        return value.replace("\\", "\\\\").replace("'", "\\'");
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Identifies the configuration mod-connect generated for a job. The fingerprint is recorded in the job description,
+ * which the folder listing returns for every job at once, so unchanged jobs can be skipped without fetching their
+ * config.xml.
+ */
+public final class JobFingerprint {
+    private static final String EMPTY_DESCRIPTION = "<description></description>";
+    private static final String DESCRIPTION_PREFIX = "Generated by mod-connect. Configuration fingerprint: ";
+
+    public static String of(String config) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(config.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String describe(String fingerprint) {
+        return DESCRIPTION_PREFIX + fingerprint;
+    }
+
+    public static String embed(String config, String fingerprint) {
+        return StringUtils.replaceOnce(config, EMPTY_DESCRIPTION,
+                "<description>" + describe(fingerprint) + "</description>");
+    }
+
+    public static boolean matches(String description, String fingerprint) {
+        return description != null && description.trim().equals(describe(fingerprint));
+    }
+
+    private JobFingerprint() {
+    }
+}
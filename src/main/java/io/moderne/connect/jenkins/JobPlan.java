@@ -0,0 +1,190 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Records what a run would do to a controller without contacting it. The config.xml of every job is written to
+ * {@code <folder path>/<job name>/config.xml} below the plan directory, and each action is listed in
+ * {@value #SUMMARY}. The jobs the controller would hold afterwards are written to {@value #INVENTORY}, which a later
+ * plan can start from to tell created, updated and unchanged jobs apart. Alternatively, the jobs that the controller
+ * actually holds can be listed from it, folder by folder, as the plan goes.
+ */
+public class JobPlan implements Closeable {
+    public static final String SUMMARY = "plan.txt";
+    public static final String INVENTORY = "inventory.tsv";
+
+    private final Path directory;
+    private final BufferedWriter summary;
+    private final Map<String, Map<String, String>> jobsByFolder;
+    private final Function<String, FolderInventory.Listing> controller;
+    private final Map<String, Integer> counts = new TreeMap<>();
+
+    /**
+     * @param inventory The {@value #INVENTORY} of a previous plan, or null to plan against an empty controller.
+     */
+    public JobPlan(Path directory, Path inventory) throws IOException {
+        this(directory, inventory, null);
+    }
+
+    /**
+     * @param inventory  The {@value #INVENTORY} of a previous plan, or null to plan against an empty controller.
+     * @param controller Lists the jobs and subfolders that a folder of the controller holds, or null when the
+     *                   controller is not contacted at all. Only read-only requests should be made by it.
+     */
+    public JobPlan(Path directory, Path inventory, Function<String, FolderInventory.Listing> controller) throws IOException {
+        this.directory = directory;
+        this.jobsByFolder = inventory == null ? new HashMap<>() : readInventory(inventory);
+        this.controller = controller;
+        Files.createDirectories(directory);
+        this.summary = Files.newBufferedWriter(directory.resolve(SUMMARY), StandardCharsets.UTF_8);
+    }
+
+    public FolderInventory.Listing listJobs(String folderPath) {
+        // The controller is listed outside of the lock so that folders can be listed concurrently
+        FolderInventory.Listing live = controller == null ? null : controller.apply(folderPath);
+        synchronized (this) {
+            Set<String> subfolders = new HashSet<>();
+            if (live != null) {
+                if (!live.getJobs().isEmpty()) {
+                    Map<String, String> jobs = jobsByFolder.computeIfAbsent(folderPath, path -> new HashMap<>());
+                    live.getJobs().forEach(jobs::putIfAbsent);
+                }
+                subfolders.addAll(live.getFolders());
+            }
+            for (String known : jobsByFolder.keySet()) {
+                if (known.startsWith(folderPath + "/")) {
+                    subfolders.add(known.substring(folderPath.length() + 1).split("/")[0]);
+                }
+            }
+            return new FolderInventory.Listing(new HashMap<>(jobsByFolder.getOrDefault(folderPath, new HashMap<>())), subfolders);
+        }
+    }
+
+    public synchronized boolean folderExists(String folderPath) {
+        if (jobsByFolder.containsKey(folderPath)) {
+            return true;
+        }
+        for (String known : jobsByFolder.keySet()) {
+            if (known.startsWith(folderPath + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void folder(String folderPath) throws IOException {
+        record("created", folderPath + "/");
+    }
+
+    public void job(String folderPath, String jobName, String verb, String config, String description) throws IOException {
+        Path jobDirectory = directory;
+        for (String name : folderPath.split("/")) {
+            if (!name.isEmpty()) {
+                jobDirectory = jobDirectory.resolve(name);
+            }
+        }
+        jobDirectory = jobDirectory.resolve(jobName);
+        Files.createDirectories(jobDirectory);
+        Files.write(jobDirectory.resolve("config.xml"), config.getBytes(StandardCharsets.UTF_8));
+        synchronized (this) {
+            jobsByFolder.computeIfAbsent(folderPath, path -> new HashMap<>()).put(jobName, description);
+        }
+        record(verb, fullName(folderPath, jobName));
+    }
+
+    public void deleted(String folderPath, String jobName) throws IOException {
+        synchronized (this) {
+            Map<String, String> jobs = jobsByFolder.get(folderPath);
+            if (jobs != null) {
+                jobs.remove(jobName);
+            }
+        }
+        record("deleted", fullName(folderPath, jobName));
+    }
+
+    public void disabled(String folderPath, String jobName) throws IOException {
+        record("disabled", fullName(folderPath, jobName));
+    }
+
+    /**
+     * Writes a file that would be stored in the controller, such as a managed script, below {@code files/}.
+     */
+    public void file(String id, String content) throws IOException {
+        Path files = directory.resolve("files");
+        Files.createDirectories(files);
+        Files.write(files.resolve(id), content.getBytes(StandardCharsets.UTF_8));
+        record("published", "files/" + id);
+    }
+
+    /**
+     * The number of jobs and folders per action, such as created or updated.
+     */
+    public synchronized Map<String, Integer> getCounts() {
+        return new TreeMap<>(counts);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        summary.close();
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(INVENTORY), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Map<String, String>> folder : new TreeMap<>(jobsByFolder).entrySet()) {
+                for (Map.Entry<String, String> job : new TreeMap<>(folder.getValue()).entrySet()) {
+                    writer.write(folder.getKey() + "\t" + job.getKey() + "\t" + job.getValue());
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    private synchronized void record(String verb, String item) throws IOException {
+        counts.merge(verb, 1, Integer::sum);
+        summary.write(verb + "\t" + item);
+        summary.write('\n');
+    }
+
+    private static String fullName(String folderPath, String jobName) {
+        return folderPath.isEmpty() ? jobName : folderPath + "/" + jobName;
+    }
+
+    private static Map<String, Map<String, String>> readInventory(Path inventory) throws IOException {
+        Map<String, Map<String, String>> jobsByFolder = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(inventory, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split("\t", 3);
+                if (values.length >= 2) {
+                    jobsByFolder.computeIfAbsent(values[0], path -> new HashMap<>())
+                            .put(values[1], values.length > 2 ? values[2] : "");
+                }
+            }
+        }
+        return jobsByFolder;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Spreads jobs over subfolders so that no single folder has to hold, list or load every job. A job always maps to
+ * the same subfolder for the same strategy and number of shards, so subsequent runs update jobs in place.
+ */
+public class JobShards {
+
+    public enum Strategy {
+        NONE,
+        ORG,
+        HASH
+    }
+
+    private final Strategy strategy;
+    private final int shards;
+    private final String shardNameFormat;
+
+    public JobShards(Strategy strategy, int shards) {
+        if (strategy == Strategy.HASH && shards < 1) {
+            throw new IllegalArgumentException("The number of shards must be at least 1");
+        }
+        this.strategy = strategy;
+        this.shards = shards;
+        // Zero padded, so that the shards are listed in order
+        this.shardNameFormat = "shard-%0" + String.valueOf(Math.max(shards - 1, 0)).length() + "d";
+    }
+
+    /**
+     * @param parentFolder the folder the shards are created in, may be empty for the root of the controller
+     * @param repoSlug     the repository path, whose first segment is the organization
+     * @param projectName  the name of the job
+     * @return the folder path of the job
+     */
+    public String folder(String parentFolder, String repoSlug, String projectName) {
+        String shard;
+        switch (strategy) {
+            case ORG:
+                shard = sanitize(repoSlug.split("/")[0]);
+                break;
+            case HASH:
+                CRC32 crc = new CRC32();
+                crc.update(projectName.getBytes(StandardCharsets.UTF_8));
+                shard = String.format(shardNameFormat, crc.getValue() % shards);
+                break;
+            default:
+                return parentFolder;
+        }
+        return parentFolder.isEmpty() ? shard : parentFolder + "/" + shard;
+    }
+
+    private static String sanitize(String name) {
+        // Characters that Jenkins does not allow in item names
+        return name.replaceAll("[?*/\\\\%!@#$^&|<>\\[\\]:;]", "_");
+    }
+}
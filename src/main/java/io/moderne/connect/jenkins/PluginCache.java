@@ -0,0 +1,68 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the list of plugins of each Jenkins controller on disk, so that runs against the same controller within the
+ * time to live do not need to ask for it again. Caching is best effort: a cache that can not be read or written is
+ * the same as an empty one.
+ */
+public class PluginCache {
+    private final Path directory;
+    private final long ttlMillis;
+
+    public PluginCache(Path directory, long ttl, TimeUnit unit) {
+        this.directory = directory;
+        this.ttlMillis = unit.toMillis(ttl);
+    }
+
+    public String get(String controllerUrl, Supplier<String> fetch) {
+        Path file = file(controllerUrl);
+        try {
+            if (Files.isRegularFile(file) &&
+                System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() < ttlMillis) {
+                return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            // Fetch the plugins again
+        }
+
+        String plugins = fetch.get();
+        try {
+            Files.createDirectories(directory);
+            // Written aside and moved in place, so that concurrent runs never read a partial file
+            Path temp = Files.createTempFile(directory, "plugins", ".tmp");
+            Files.write(temp, plugins.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The next run fetches the plugins again
+        }
+        return plugins;
+    }
+
+    Path file(String controllerUrl) {
+        String key = controllerUrl.replaceAll("/+$", "").replaceAll("[^A-Za-z0-9.-]", "_");
+        return directory.resolve("plugins-" + key + ".json");
+    }
+}
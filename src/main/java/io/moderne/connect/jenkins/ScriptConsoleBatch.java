@@ -0,0 +1,143 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import io.moderne.connect.utils.TextBlock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Creates or updates a batch of jobs with a single script console request. Every value is passed to the script
+ * base64 encoded, so no job configuration can break out of the script, and the script prints one line per job with
+ * its outcome.
+ */
+public class ScriptConsoleBatch {
+    private static final String SCRIPT_TEMPLATE = "cli/jenkins/bulk_apply.groovy.template";
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    public void add(String folderPath, String jobName, String config) {
+        entries.add(new Entry(folderPath, jobName, config));
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public String script() {
+        StringBuilder jobs = new StringBuilder();
+        for (Entry entry : entries) {
+            jobs.append("    ['").append(encode(entry.folderPath))
+                    .append("', '").append(encode(entry.jobName))
+                    .append("', '").append(encode(entry.config))
+                    .append("'],\n");
+        }
+        return String.format(TextBlock.textBlock(SCRIPT_TEMPLATE), jobs);
+    }
+
+    /**
+     * Matches the output of the script to the jobs of the batch, in the order they were added. A job the script
+     * did not report on is considered failed.
+     */
+    public List<Result> results(String output) {
+        String[] outcomes = new String[entries.size()];
+        for (String line : output.split("\r?\n")) {
+            String[] fields = line.split("\t", 2);
+            try {
+                int index = Integer.parseInt(fields[0]);
+                if (fields.length == 2 && index >= 0 && index < outcomes.length) {
+                    outcomes[index] = fields[1];
+                }
+            } catch (NumberFormatException e) {
+                // Not a line printed for a job
+            }
+        }
+
+        List<Result> results = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            String outcome = outcomes[i];
+            if (outcome == null) {
+                results.add(new Result(entry.folderPath, entry.jobName, null, "No result was reported"));
+            } else if (outcome.startsWith("failed")) {
+                results.add(new Result(entry.folderPath, entry.jobName, null, outcome.substring("failed".length()).trim()));
+            } else {
+                results.add(new Result(entry.folderPath, entry.jobName, outcome.trim(), null));
+            }
+        }
+        return results;
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class Entry {
+        private final String folderPath;
+        private final String jobName;
+        private final String config;
+
+        private Entry(String folderPath, String jobName, String config) {
+            this.folderPath = folderPath;
+            this.jobName = jobName;
+            this.config = config;
+        }
+    }
+
+    public static class Result {
+        private final String folderPath;
+        private final String jobName;
+        private final String verb;
+        private final String error;
+
+        private Result(String folderPath, String jobName, String verb, String error) {
+            this.folderPath = folderPath;
+            this.jobName = jobName;
+            this.verb = verb;
+            this.error = error;
+        }
+
+        public String getFolderPath() {
+            return folderPath;
+        }
+
+        public String getJobName() {
+            return jobName;
+        }
+
+        /**
+         * @return "created" or "updated" when the job was applied
+         */
+        public String getVerb() {
+            return verb;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The state of the jobs as of the last applied CSV file: the hash of each job's rendered configuration and when it
+ * was applied. A job whose hash is unchanged is not sent to the controller again, so a sync only costs requests for
+ * the rows that were added or changed, or whose rendering changed through a global option such as the CLI version.
+ * Changes made to a job directly in Jenkins are not detected.
+ */
+public class StateManifest {
+    private final Path file;
+    private final Map<String, String[]> previous;
+    private final Map<String, String[]> current = new ConcurrentHashMap<>();
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+    public StateManifest(Path file) throws IOException {
+        this.file = file;
+        this.previous = Files.exists(file) ? read(file) : new HashMap<>();
+    }
+
+    public boolean isApplied(String jobName, String hash) {
+        String[] entry = previous.get(jobName);
+        return entry != null && entry[0].equals(hash);
+    }
+
+    /**
+     * Marks a job as still produced by the CSV file, keeping its previous state until it is applied again.
+     */
+    public void seen(String jobName) {
+        seen.add(jobName);
+        String[] entry = previous.get(jobName);
+        if (entry != null) {
+            current.putIfAbsent(jobName, entry);
+        }
+    }
+
+    public void applied(String jobName, String hash) {
+        current.put(jobName, new String[]{hash, Instant.now().toString()});
+    }
+
+    public void deleted(String jobName) {
+        seen.remove(jobName);
+        current.remove(jobName);
+    }
+
+    /**
+     * The jobs of the previous manifest that the CSV file no longer produces.
+     */
+    public Set<String> removed() {
+        Set<String> removed = new TreeSet<>(previous.keySet());
+        removed.removeAll(seen);
+        return removed;
+    }
+
+    /**
+     * @param complete Whether the whole CSV file was read. Otherwise, the jobs of the rows that were not read yet
+     *                 are kept as they were.
+     */
+    public void save(boolean complete) throws IOException {
+        Map<String, String[]> entries = new TreeMap<>(current);
+        if (!complete) {
+            for (Map.Entry<String, String[]> entry : previous.entrySet()) {
+                entries.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        // Written aside and moved in place, so that an interrupted save never leaves a partial manifest
+        Path temp = Files.createTempFile(directory, "manifest", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String[]> entry : entries.entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue()[0] + "\t" + entry.getValue()[1]);
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, String[]> read(Path file) throws IOException {
+        Map<String, String[]> entries = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split("\t", 3);
+                if (values.length == 3) {
+                    entries.put(values[0], new String[]{values[1], values[2]});
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.utils;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs tasks with at most a fixed number of them submitted but not yet consumed, so that a producer reading a large
+ * input never gets ahead of the workers by more than the window. Results are consumed as tasks complete, in
+ * whatever order that happens. Tasks report success with {@code true}; a task that throws counts as a failure.
+ * <p>
+ * Meant to be fed by a single producer thread.
+ */
+public class CompletionWindow {
+    private final CompletionService<Boolean> completions;
+    private final int size;
+
+    private int pending;
+    private int failed;
+
+    public CompletionWindow(Executor executor, int size) {
+        this.completions = new ExecutorCompletionService<>(executor);
+        this.size = size;
+    }
+
+    /**
+     * Blocks until the window has room for another task, then submits it.
+     */
+    public void submit(Callable<Boolean> task) throws InterruptedException {
+        Future<Boolean> completed;
+        while ((completed = completions.poll()) != null) {
+            consume(completed);
+        }
+        while (pending >= size) {
+            consume(completions.take());
+        }
+        completions.submit(task);
+        pending++;
+    }
+
+    /**
+     * Waits for every submitted task to complete and returns the number of tasks that failed.
+     */
+    public int awaitFailures() throws InterruptedException {
+        while (pending > 0) {
+            consume(completions.take());
+        }
+        return failed;
+    }
+
+    private void consume(Future<Boolean> completed) throws InterruptedException {
+        pending--;
+        try {
+            if (!completed.get()) {
+                failed++;
+            }
+        } catch (ExecutionException e) {
+            // Swallow any exceptions to ensure all other tasks complete before we exit
+            failed++;
+        }
+    }
+}
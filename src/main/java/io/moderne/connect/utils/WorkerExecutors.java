@@ -0,0 +1,43 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class WorkerExecutors {
+
+    /**
+     * Workers spend nearly all of their time waiting on the network, so on Java 21 or later each task gets its own
+     * virtual thread and concurrency is only bounded by the callers. Older runtimes get a fixed pool of platform
+     * threads. The lookup is reflective because the project still compiles for Java 8.
+     */
+    public static ExecutorService newWorkerExecutor(int platformThreads, boolean preferVirtualThreads) {
+        if (preferVirtualThreads) {
+            try {
+                Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+            } catch (ReflectiveOperationException | UnsupportedOperationException ignored) {
+                // Virtual threads are not available (or only as a preview) on this runtime
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads);
+    }
+
+    private WorkerExecutors() {
+    }
+}
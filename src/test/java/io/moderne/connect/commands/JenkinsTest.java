@@ -16,11 +16,14 @@
 package io.moderne.connect.commands;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.moderne.connect.jenkins.JobPlan;
+import io.moderne.connect.jenkins.JobShards;
 import kong.unirest.HttpResponse;
 import kong.unirest.Unirest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.images.builder.ImageFromDockerfile;
@@ -30,7 +33,12 @@ import picocli.CommandLine;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
@@ -119,6 +127,85 @@ class JenkinsTest {
         assertThat(response.getBody()).isEqualToIgnoringWhitespace(expectedJob);
     }
 
+    @Test
+    void submitOrchestratorJob() {
+        int result = cmd.execute("jenkins",
+                "--fromCsv", new File("src/test/csv/repos.csv").getAbsolutePath(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--orchestrator",
+                "--verbose");
+        assertThat(result).isEqualTo(0);
+
+        HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/moderne-ingest/job/" + Jenkins.ORCHESTRATOR_JOB + "/config.xml")
+                .basicAuth(JENKINS_TESTING_USER, apiToken)
+                .asString();
+        assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+        assertThat(response.getBody())
+                .contains("<flow-definition")
+                .contains("openrewrite_rewrite-spring_main,https://github.com/openrewrite/rewrite-spring.git,main");
+    }
+
+    @Test
+    void exportJobs(@TempDir Path tempDir) throws Exception {
+        Path script = tempDir.resolve("jobs.groovy");
+        int result = cmd.execute("jenkins",
+                "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "exported",
+                "--pluginVersions", writePluginVersions(tempDir).toString(),
+                "--exportTo", script.toString());
+        assertThat(result).isEqualTo(0);
+        assertThat(new String(Files.readAllBytes(script), StandardCharsets.UTF_8))
+                .contains("fromXml(dsl.freeStyleJob('exported/openrewrite_rewrite-spring_main'), ")
+                .contains("Jobs1.define(this)");
+
+        runJobDsl(script);
+        HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/exported/job/openrewrite_rewrite-java-migration_main/config.xml")
+                .basicAuth(JENKINS_TESTING_USER, apiToken)
+                .asString();
+        assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+        assertThat(response.getBody())
+                .contains("<project>")
+                .contains("<url>https://github.com/openrewrite/rewrite-java-migration.git</url>")
+                .contains("<hudson.triggers.TimerTrigger>");
+        assertTrue(Unirest.get(jenkinsHost + "/job/exported/job/openrewrite_rewrite-spring_main/api/json")
+                .basicAuth(JENKINS_TESTING_USER, apiToken)
+                .asString().isSuccess());
+    }
+
+    @Test
+    void exportOrchestratorJob(@TempDir Path tempDir) throws Exception {
+        Path script = tempDir.resolve("jobs.groovy");
+        int result = cmd.execute("jenkins",
+                "--fromCsv", new File("src/test/csv/repos.csv").getAbsolutePath(),
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "exported-orchestrator",
+                "--orchestrator",
+                "--pluginVersions", writePluginVersions(tempDir).toString(),
+                "--exportTo", script.toString());
+        assertThat(result).isEqualTo(0);
+        assertThat(new String(Files.readAllBytes(script), StandardCharsets.UTF_8))
+                .contains("fromXml(dsl.pipelineJob('exported-orchestrator/" + Jenkins.ORCHESTRATOR_JOB + "'), ");
+
+        runJobDsl(script);
+        HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/exported-orchestrator/job/" + Jenkins.ORCHESTRATOR_JOB + "/config.xml")
+                .basicAuth(JENKINS_TESTING_USER, apiToken)
+                .asString();
+        assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+        assertThat(response.getBody())
+                .contains("<flow-definition")
+                .contains("openrewrite_rewrite-spring_main,https://github.com/openrewrite/rewrite-spring.git,main");
+    }
+
     @Test
     void submitJobsWithPassword() throws Exception {
         int result = cmd.execute("jenkins",
@@ -162,6 +249,370 @@ class JenkinsTest {
         assertThat(response.getBody()).isEqualToIgnoringWhitespace(expectedJob);
     }
 
+    @Test
+    void pruneJobsNoLongerInCsv() {
+        String[] options = {
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "prune"};
+        assertThat(cmd.execute(concat(options, "jenkins", "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath()))).isEqualTo(0);
+
+        // Two jobs are missing from repos.csv, which is more than allowed
+        assertThat(cmd.execute(concat(options, "jenkins", "--fromCsv", new File("src/test/csv/repos.csv").getAbsolutePath(),
+                "--pruneOrphans", "delete", "--maxPrunes", "1"))).isEqualTo(1);
+        assertTrue(Unirest.get(jenkinsHost + "/job/prune/job/openrewrite_rewrite-java-migration_main/api/json").asString().isSuccess());
+
+        assertThat(cmd.execute(concat(options, "jenkins", "--fromCsv", new File("src/test/csv/repos.csv").getAbsolutePath(),
+                "--pruneOrphans", "delete"))).isEqualTo(0);
+        assertFalse(Unirest.get(jenkinsHost + "/job/prune/job/openrewrite_rewrite-java-migration_main/api/json").asString().isSuccess());
+        assertFalse(Unirest.get(jenkinsHost + "/job/prune/job/openrewrite_rewrite-maven-plugin_main/api/json").asString().isSuccess());
+        assertTrue(Unirest.get(jenkinsHost + "/job/prune/job/openrewrite_rewrite-spring_main/api/json").asString().isSuccess());
+    }
+
+    @Test
+    void pruneJobsLeftInShardsNoLongerUsed() {
+        String[] options = {
+                "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "prune-shards"};
+        assertThat(cmd.execute(concat(options, "jenkins", "--shardBy", "hash", "--shards", "4"))).isEqualTo(0);
+        String shard = new JobShards(JobShards.Strategy.HASH, 4)
+                .folder("prune-shards", "openrewrite/rewrite-spring", "openrewrite_rewrite-spring_main");
+        String shardedJob = jenkinsHost + "/job/" + shard.replace("/", "/job/") + "/job/openrewrite_rewrite-spring_main/api/json";
+        assertTrue(Unirest.get(shardedJob).asString().isSuccess());
+
+        // No job is expected in any shard anymore, so the shards are only found by listing the folder
+        assertThat(cmd.execute(concat(options, "jenkins", "--pruneOrphans", "delete"))).isEqualTo(0);
+        assertFalse(Unirest.get(shardedJob).asString().isSuccess());
+        assertTrue(Unirest.get(jenkinsHost + "/job/prune-shards/job/openrewrite_rewrite-spring_main/api/json").asString().isSuccess());
+    }
+
+    @Test
+    void pruneOnlyTheValidateJobsOfTheFolder(@TempDir Path tempDir) throws Exception {
+        Path otherCsv = tempDir.resolve("other.csv");
+        Files.write(otherCsv, ",moderne/validate-kept,main,,gradle,,,,false,\n".getBytes(StandardCharsets.UTF_8));
+        Path csv = tempDir.resolve("repos.csv");
+        Files.write(csv, (",moderne/validate-pruned,main,,gradle,,,,false,\n" +
+                          ",moderne/validate-expected,main,,gradle,,,,false,\n").getBytes(StandardCharsets.UTF_8));
+        String[] options = {
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--createValidateJobs"};
+        assertThat(cmd.execute(concat(options, "jenkins", "--fromCsv", otherCsv.toString(), "--folder", "validate-other"))).isEqualTo(0);
+        assertThat(cmd.execute(concat(options, "jenkins", "--fromCsv", csv.toString(), "--folder", "validate-pruned"))).isEqualTo(0);
+        String kept = jenkinsHost + "/job/validate/job/moderne_validate-kept_main/api/json";
+        String pruned = jenkinsHost + "/job/validate/job/moderne_validate-pruned_main/api/json";
+        assertTrue(Unirest.get(pruned).asString().isSuccess());
+
+        Files.write(csv, ",moderne/validate-expected,main,,gradle,,,,false,\n".getBytes(StandardCharsets.UTF_8));
+        // Without --createValidateJobs, the validate folder is not managed by the run at all, and the mode of pruning
+        // is read regardless of its case
+        assertThat(cmd.execute("jenkins", "--fromCsv", csv.toString(), "--folder", "validate-pruned",
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--pruneOrphans", "DISABLE")).isEqualTo(0);
+        assertTrue(Unirest.get(pruned).asString().isSuccess());
+        assertTrue(Unirest.get(jenkinsHost + "/job/validate/job/moderne_validate-expected_main/api/json").asString().isSuccess());
+
+        assertThat(cmd.execute(concat(options, "jenkins", "--fromCsv", csv.toString(), "--folder", "validate-pruned",
+                "--pruneOrphans", "delete"))).isEqualTo(0);
+        assertFalse(Unirest.get(pruned).asString().isSuccess());
+        // The validate jobs of the other folder are not among the jobs of this one
+        assertTrue(Unirest.get(kept).asString().isSuccess());
+    }
+
+    @Test
+    void planDoesNotRecordJobsInStateManifest(@TempDir Path tempDir) throws Exception {
+        String[] options = {
+                "--fromCsv", new File("src/test/csv/repos.csv").getAbsolutePath(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "planned",
+                "--stateManifest", tempDir.resolve("state.tsv").toString()};
+        assertThat(cmd.execute(concat(options, "jenkins",
+                "--plan", tempDir.resolve("plan").toString(),
+                "--pluginVersions", writePluginVersions(tempDir).toString()))).isEqualTo(0);
+        assertFalse(Unirest.get(jenkinsHost + "/job/planned/job/openrewrite_rewrite-spring_main/api/json").asString().isSuccess());
+
+        // The planned jobs were never sent to the controller, so the next run still applies them
+        assertThat(cmd.execute(concat(options, "jenkins"))).isEqualTo(0);
+        assertTrue(Unirest.get(jenkinsHost + "/job/planned/job/openrewrite_rewrite-spring_main/api/json").asString().isSuccess());
+    }
+
+    @Test
+    void planAgainstTheJobsOnTheController(@TempDir Path tempDir) throws Exception {
+        String[] options = {
+                "--fromCsv", new File("src/test/csv/repos.csv").getAbsolutePath(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "replanned",
+                "--skipUnchanged"};
+        assertThat(cmd.execute(concat(options, "jenkins"))).isEqualTo(0);
+
+        // Without --planInventory, the plan lists what the controller holds instead of assuming it is empty
+        Path plan = tempDir.resolve("plan");
+        assertThat(cmd.execute(concat(options, "jenkins", "--plan", plan.toString()))).isEqualTo(0);
+        String summary = new String(Files.readAllBytes(plan.resolve(JobPlan.SUMMARY)), StandardCharsets.UTF_8);
+        assertThat(summary)
+                .contains("unchanged\treplanned/openrewrite_rewrite-spring_main")
+                .doesNotContain("created");
+        assertThat(new String(Files.readAllBytes(plan.resolve(JobPlan.INVENTORY)), StandardCharsets.UTF_8))
+                .contains("replanned\topenrewrite_rewrite-spring_main\t");
+    }
+
+    @Test
+    void submitFreestyleJobsWithManagedScript() {
+        int result = cmd.execute("jenkins",
+                "--fromCsv", new File("src/test/csv/repos.csv").getAbsolutePath(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "managed",
+                "--downloadCLI",
+                "--managedScript", "moderne-ingest-script",
+                "--verbose");
+        assertThat(result).isEqualTo(0);
+
+        HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/managed/job/openrewrite_rewrite-spring_main/config.xml").asString();
+        assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+        assertThat(response.getBody())
+                .contains("<fileId>moderne-ingest-script</fileId>")
+                .contains("<variable>MODERNE_INGEST_SCRIPT</variable>")
+                .contains("${MODERNE_INGEST_SCRIPT}")
+                // the preparation steps are only in the managed script
+                .doesNotContain("curl")
+                .doesNotContain("config lsts artifacts");
+
+        // the script was published to the controller through the script console
+        HttpResponse<String> published = Unirest.post(jenkinsHost + "/scriptText")
+                .basicAuth(JENKINS_TESTING_USER, apiToken)
+                .field("script", "import org.jenkinsci.plugins.configfiles.GlobalConfigFiles\n" +
+                                 "println GlobalConfigFiles.get().getById('moderne-ingest-script')?.content")
+                .asString();
+        assertThat(published.isSuccess()).as("Failed to read the managed script: " + published.getStatusText()).isTrue();
+        assertThat(published.getBody())
+                .contains("curl")
+                .contains("config lsts artifacts")
+                .contains("publish .");
+    }
+
+    @Test
+    void submitFreestyleJobsWithCloneOptions(@TempDir Path tempDir) throws Exception {
+        Path csv = tempDir.resolve("repos.csv");
+        Files.write(csv, ("scmHost,repoName,repoBranch,mavenTool,gradleTool,jdkTool,repoStyle,repoBuildAction,repoSkip,skipReason,cloneOptions\n" +
+                          ",openrewrite/rewrite-spring,main,,gradle,,,,false,,\n" +
+                          ",openrewrite/rewrite-java-migration,main,,gradle,,,,false,,depth=5;noTags=false;honorRefspec=false\n")
+                .getBytes(StandardCharsets.UTF_8));
+        int result = cmd.execute("jenkins",
+                "--fromCsv", csv.toString(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "cloned",
+                "--cloneDepth", "1",
+                "--cloneNoTags",
+                "--cloneHonorRefspec",
+                "--cloneReference", "/cache/rewrite.git");
+        assertThat(result).isEqualTo(0);
+
+        HttpResponse<String> defaults = Unirest.get(jenkinsHost + "/job/cloned/job/openrewrite_rewrite-spring_main/config.xml").asString();
+        assertThat(defaults.isSuccess()).as("Failed to get job config.xml: " + defaults.getStatusText()).isTrue();
+        assertThat(defaults.getBody())
+                .contains("<refspec>+refs/heads/main:refs/remotes/origin/main</refspec>")
+                .contains("<hudson.plugins.git.extensions.impl.CloneOption>")
+                .contains("<shallow>true</shallow>")
+                .contains("<depth>1</depth>")
+                .contains("<noTags>true</noTags>")
+                .contains("<reference>/cache/rewrite.git</reference>")
+                .contains("<honorRefspec>true</honorRefspec>");
+
+        // the cloneOptions column of a row overrides the command line options for that repository only
+        HttpResponse<String> overridden = Unirest.get(jenkinsHost + "/job/cloned/job/openrewrite_rewrite-java-migration_main/config.xml").asString();
+        assertThat(overridden.isSuccess()).as("Failed to get job config.xml: " + overridden.getStatusText()).isTrue();
+        assertThat(overridden.getBody())
+                .doesNotContain("<refspec>")
+                .contains("<shallow>true</shallow>")
+                .contains("<depth>5</depth>")
+                .contains("<noTags>false</noTags>")
+                .contains("<reference>/cache/rewrite.git</reference>")
+                .contains("<honorRefspec>false</honorRefspec>");
+    }
+
+    @Test
+    void skipRowsWithInvalidCloneOptions(@TempDir Path tempDir) throws Exception {
+        Path csv = tempDir.resolve("repos.csv");
+        Files.write(csv, ("scmHost,repoName,repoBranch,mavenTool,gradleTool,jdkTool,repoStyle,repoBuildAction,repoSkip,skipReason,cloneOptions\n" +
+                          // the comma of the skip reason shifts its end into the cloneOptions column
+                          ",openrewrite/rewrite-java-migration,main,,gradle,,,,true,archived, no longer built\n" +
+                          ",openrewrite/rewrite-maven-plugin,main,maven,,,,,false,,sparse=true\n" +
+                          ",openrewrite/rewrite-spring,main,,gradle,,,,false,,depth=1\n")
+                .getBytes(StandardCharsets.UTF_8));
+        int result = cmd.execute("jenkins",
+                "--fromCsv", csv.toString(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "invalid-clone-options");
+
+        // only the row with invalid cloneOptions fails, the others are still applied
+        assertThat(result).isEqualTo(1);
+        assertTrue(Unirest.get(jenkinsHost + "/job/invalid-clone-options/job/openrewrite_rewrite-spring_main/api/json").asString().isSuccess());
+        assertFalse(Unirest.get(jenkinsHost + "/job/invalid-clone-options/job/openrewrite_rewrite-maven-plugin_main/api/json").asString().isSuccess());
+        assertFalse(Unirest.get(jenkinsHost + "/job/invalid-clone-options/job/openrewrite_rewrite-java-migration_main/api/json").asString().isSuccess());
+    }
+
+    @Test
+    void applyJobsInBatches(@TempDir Path tempDir) throws Exception {
+        String[] options = {
+                "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "batched",
+                "--bulkBatchSize", "2"};
+        String job = jenkinsHost + "/job/batched/job/openrewrite_rewrite-maven-plugin_main/config.xml";
+
+        // three jobs, so that the script console creates them in two batches
+        assertThat(cmd.execute(concat(options, "jenkins"))).isEqualTo(0);
+        for (String jobName : new String[]{"openrewrite_rewrite-spring_main", "openrewrite_rewrite-java-migration_main", "openrewrite_rewrite-maven-plugin_main"}) {
+            assertTrue(Unirest.get(jenkinsHost + "/job/batched/job/" + jobName + "/api/json").asString().isSuccess());
+        }
+        assertThat(Unirest.get(job).asString().getBody()).contains("H H * * *");
+
+        // the same batches update the jobs that already exist
+        assertThat(cmd.execute(concat(options, "jenkins", "--scheduledAt", "H 2 * * *", "--skipUnchanged"))).isEqualTo(0);
+        assertThat(Unirest.get(job).asString().getBody()).contains("H 2 * * *");
+
+        // unchanged jobs are not sent again, but still recorded in the state manifest
+        Path manifest = tempDir.resolve("state.tsv");
+        assertThat(cmd.execute(concat(options, "jenkins", "--scheduledAt", "H 2 * * *", "--skipUnchanged",
+                "--stateManifest", manifest.toString()))).isEqualTo(0);
+        assertThat(new String(Files.readAllBytes(manifest), StandardCharsets.UTF_8))
+                .contains("batched/openrewrite_rewrite-spring_main\t")
+                .contains("batched/openrewrite_rewrite-java-migration_main\t")
+                .contains("batched/openrewrite_rewrite-maven-plugin_main\t");
+    }
+
+    @Test
+    void resumeFromCheckpoint(@TempDir Path tempDir) throws Exception {
+        Path checkpoint = tempDir.resolve("checkpoint.tsv");
+        String[] options = {
+                "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                "--controllerUrl", jenkinsHost,
+                "--jenkinsUser", JENKINS_TESTING_USER,
+                "--apiToken", apiToken,
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--folder", "checkpointed",
+                "--checkpoint", checkpoint.toString()};
+        assertThat(cmd.execute(concat(options, "jenkins"))).isEqualTo(0);
+        assertThat(Files.readAllLines(checkpoint)).hasSize(3);
+
+        // As if the run had been interrupted before the last job was applied
+        List<String> applied = Files.readAllLines(checkpoint);
+        applied.removeIf(entry -> entry.contains("openrewrite_rewrite-maven-plugin_main"));
+        Files.write(checkpoint, applied);
+        String journaledJob = jenkinsHost + "/job/checkpointed/job/openrewrite_rewrite-spring_main";
+        String missingJob = jenkinsHost + "/job/checkpointed/job/openrewrite_rewrite-maven-plugin_main";
+        for (String job : new String[]{journaledJob, missingJob}) {
+            Unirest.post(job + "/doDelete").basicAuth(JENKINS_TESTING_USER, apiToken).asString();
+            assertFalse(Unirest.get(job + "/api/json").asString().isSuccess());
+        }
+
+        assertThat(cmd.execute(concat(options, "jenkins", "--resume"))).isEqualTo(0);
+        // A job recorded in the checkpoint is not posted again, so the one deleted meanwhile stays deleted
+        assertFalse(Unirest.get(journaledJob + "/api/json").asString().isSuccess());
+        assertTrue(Unirest.get(missingJob + "/api/json").asString().isSuccess());
+        assertThat(Files.readAllLines(checkpoint)).hasSize(3);
+    }
+
+    @Test
+    void checkpointCanNotBeCombinedWithPlan(@TempDir Path tempDir) throws Exception {
+        Path checkpoint = tempDir.resolve("checkpoint.tsv");
+        int result = cmd.execute("jenkins",
+                "--fromCsv", new File("src/test/csv/repos.csv").getAbsolutePath(),
+                "--publishCredsId", ARTIFACT_CREDS,
+                "--gitCredsId", GIT_CREDS,
+                "--publishUrl", ARTIFACTORY_URL,
+                "--plan", tempDir.resolve("plan").toString(),
+                "--pluginVersions", writePluginVersions(tempDir).toString(),
+                "--checkpoint", checkpoint.toString());
+        assertThat(result).isEqualTo(1);
+        assertThat(checkpoint).doesNotExist();
+    }
+
+    /**
+     * Runs an exported Job DSL script the way a seed job would, through the script console of the controller.
+     */
+    private void runJobDsl(Path script) throws IOException {
+        String encoded = Base64.getEncoder().encodeToString(Files.readAllBytes(script));
+        HttpResponse<String> response = Unirest.post(jenkinsHost + "/scriptText")
+                .basicAuth(JENKINS_TESTING_USER, apiToken)
+                .field("script", "import javaposse.jobdsl.dsl.DslScriptLoader\n" +
+                                 "import javaposse.jobdsl.plugin.JenkinsJobManagement\n" +
+                                 "def jobManagement = new JenkinsJobManagement(System.out, [:], new File('.'))\n" +
+                                 "new DslScriptLoader(jobManagement).runScript(new String('" + encoded + "'.decodeBase64(), 'UTF-8'))\n" +
+                                 "println 'applied'")
+                .asString();
+        assertThat(response.isSuccess()).as("Failed to run the Job DSL script: " + response.getStatusText()).isTrue();
+        assertThat(response.getBody().trim()).isEqualTo("applied");
+    }
+
+    private Path writePluginVersions(Path dir) throws IOException {
+        HttpResponse<String> response = Unirest.get(jenkinsHost + "/pluginManager/api/json")
+                .queryString("tree", "plugins[shortName,version,active]")
+                .basicAuth(JENKINS_TESTING_USER, apiToken)
+                .asString();
+        assertThat(response.isSuccess()).as("Failed to list the plugins: " + response.getStatusText()).isTrue();
+        Path pluginVersions = dir.resolve("plugins.json");
+        Files.write(pluginVersions, response.getBody().getBytes(StandardCharsets.UTF_8));
+        return pluginVersions;
+    }
+
+    private static String[] concat(String[] options, String... args) {
+        String[] all = Arrays.copyOf(args, args.length + options.length);
+        System.arraycopy(options, 0, all, args.length, options.length);
+        return all;
+    }
+
     @Test
     void submitJobTwice() throws Exception {
         int result = cmd.execute("jenkins",
@@ -355,6 +806,147 @@ class JenkinsTest {
             assertThat(responseMaven.getBody()).isEqualToIgnoringWhitespace(expectedJobMaven);
         }
 
+        @Test
+        void submitFreestyleJobsWithValidatePerHost() {
+            int result = cmd.execute("jenkins",
+                    "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                    "--controllerUrl", jenkinsHost,
+                    "--jenkinsUser", JENKINS_TESTING_USER,
+                    "--apiToken", apiToken,
+                    "--publishCredsId", ARTIFACT_CREDS,
+                    "--gitCredsId", GIT_CREDS,
+                    "--publishUrl", ARTIFACTORY_URL,
+                    "--folder", "freestyle",
+                    "--downloadCLI",
+                    "--moderneUrl=" + MODERNE_URL,
+                    "--moderneToken=" + MODERNE_TOKEN,
+                    "--createValidateJobs",
+                    "--validateJobPerHost",
+                    "--verbose");
+            assertThat(result).isEqualTo(0);
+
+            await().untilAsserted(() -> assertTrue(Unirest.get(jenkinsHost + "/job/validate/job/github.com_gradle/api/json")
+                    .asString().isSuccess()));
+            assertTrue(Unirest.get(jenkinsHost + "/job/validate/job/github.com_maven/api/json").asString().isSuccess());
+            assertFalse(Unirest.get(jenkinsHost + "/job/validate/job/openrewrite_rewrite-spring_main/api/json").asString().isSuccess());
+
+            HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/validate/job/github.com_gradle/config.xml").asString();
+            assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+            assertThat(response.getBody())
+                    .contains("<name>gitUrl</name>")
+                    .contains("<url>${gitUrl}</url>")
+                    .contains("<name>*/${branch}</name>")
+                    .contains("scmToken_github.com");
+        }
+
+        @Test
+        void submitFreestyleJobsWithIncrementalWorkspace() {
+            int result = cmd.execute("jenkins",
+                    "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                    "--controllerUrl", jenkinsHost,
+                    "--jenkinsUser", JENKINS_TESTING_USER,
+                    "--apiToken", apiToken,
+                    "--publishCredsId", ARTIFACT_CREDS,
+                    "--gitCredsId", GIT_CREDS,
+                    "--publishUrl", ARTIFACTORY_URL,
+                    "--folder", "incremental",
+                    "--incrementalWorkspace",
+                    "--verbose");
+            assertThat(result).isEqualTo(0);
+
+            await().untilAsserted(() -> assertTrue(Unirest.get(jenkinsHost + "/job/incremental/job/openrewrite_rewrite-spring_main/api/json")
+                    .asString().isSuccess()));
+
+            HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/incremental/job/openrewrite_rewrite-spring_main/config.xml").asString();
+            assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+            assertThat(response.getBody())
+                    .contains("<pattern>.moderne/build/**</pattern>")
+                    .contains("<deleteDirs>true</deleteDirs>")
+                    // files tracked in the checkout, such as logs, are left in place
+                    .doesNotContain("*.log");
+        }
+
+        @Test
+        void submitFreestyleJobsWithFusedScriptSteps() {
+            int result = cmd.execute("jenkins",
+                    "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                    "--controllerUrl", jenkinsHost,
+                    "--jenkinsUser", JENKINS_TESTING_USER,
+                    "--apiToken", apiToken,
+                    "--publishCredsId", ARTIFACT_CREDS,
+                    "--gitCredsId", GIT_CREDS,
+                    "--publishUrl", ARTIFACTORY_URL,
+                    "--folder", "fused",
+                    "--downloadCLI",
+                    "--fuseScriptSteps",
+                    "--verbose");
+            assertThat(result).isEqualTo(0);
+
+            await().untilAsserted(() -> assertTrue(Unirest.get(jenkinsHost + "/job/fused/job/openrewrite_rewrite-spring_main/api/json")
+                    .asString().isSuccess()));
+
+            HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/fused/job/openrewrite_rewrite-spring_main/config.xml").asString();
+            assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+            assertThat(response.getBody())
+                    .contains("set -e")
+                    .contains("[mod-connect] download")
+                    .contains("[mod-connect] config artifacts")
+                    .contains("[mod-connect] publish");
+        }
+
+        @Test
+        void submitFreestyleJobsWithPollScm() {
+            int result = cmd.execute("jenkins",
+                    "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                    "--controllerUrl", jenkinsHost,
+                    "--jenkinsUser", JENKINS_TESTING_USER,
+                    "--apiToken", apiToken,
+                    "--publishCredsId", ARTIFACT_CREDS,
+                    "--gitCredsId", GIT_CREDS,
+                    "--publishUrl", ARTIFACTORY_URL,
+                    "--folder", "polling",
+                    "--pollScm",
+                    "--verbose");
+            assertThat(result).isEqualTo(0);
+
+            await().untilAsserted(() -> assertTrue(Unirest.get(jenkinsHost + "/job/polling/job/openrewrite_rewrite-spring_main/api/json")
+                    .asString().isSuccess()));
+
+            HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/polling/job/openrewrite_rewrite-spring_main/config.xml").asString();
+            assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+            assertThat(response.getBody())
+                    .contains("<hudson.triggers.SCMTrigger>")
+                    .doesNotContain("<hudson.triggers.TimerTrigger>");
+        }
+
+        @Test
+        void submitFreestyleJobsWithCachedDownload() {
+            int result = cmd.execute("jenkins",
+                    "--fromCsv", new File("src/test/csv/jenkins-repos.csv").getAbsolutePath(),
+                    "--controllerUrl", jenkinsHost,
+                    "--jenkinsUser", JENKINS_TESTING_USER,
+                    "--apiToken", apiToken,
+                    "--publishCredsId", ARTIFACT_CREDS,
+                    "--gitCredsId", GIT_CREDS,
+                    "--publishUrl", ARTIFACTORY_URL,
+                    "--folder", "cached",
+                    "--downloadCLI",
+                    "--downloadCLICache", "$HOME/.moderne/cli",
+                    "--verbose");
+            assertThat(result).isEqualTo(0);
+
+            await().untilAsserted(() -> assertTrue(Unirest.get(jenkinsHost + "/job/cached/job/openrewrite_rewrite-spring_main/api/json")
+                    .asString().isSuccess()));
+
+            HttpResponse<String> response = Unirest.get(jenkinsHost + "/job/cached/job/openrewrite_rewrite-spring_main/config.xml").asString();
+            assertThat(response.isSuccess()).as("Failed to get job config.xml: " + response.getStatusText()).isTrue();
+            // the controller may store the quotes of the script escaped or not
+            String quote = "(\"|&quot;)";
+            assertThat(response.getBody())
+                    .containsPattern("MOD_CACHE=" + quote + "\\$HOME/\\.moderne/cli/v")
+                    .containsPattern("mod_sha256 " + quote + "\\$MOD_CACHE/mod" + quote + "\\)" + quote + " != " + quote + "\\$MOD_EXPECTED")
+                    .containsPattern("mv -f " + quote + "\\$MOD_DOWNLOAD" + quote + " " + quote + "\\$MOD_CACHE/mod" + quote);
+        }
 
         @Test
         void submitFreestyleJobsNoCleanup() throws Exception {
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void growsWhileResponsesAreFast() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 50);
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire();
+            limiter.release(10, TimeUnit.MILLISECONDS, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void halvesOnOverloadButNeverGoesBelowMinimum() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 50);
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire();
+            limiter.release(10, TimeUnit.MILLISECONDS, false);
+        }
+
+        limiter.acquire();
+        limiter.release(10, TimeUnit.MILLISECONDS, true);
+        assertThat(limiter.getLimit()).isEqualTo(25);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.release(10, TimeUnit.MILLISECONDS, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void backsOffWhenLatencyRises() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 20);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(10, TimeUnit.MILLISECONDS, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+
+        limiter.acquire();
+        limiter.release(500, TimeUnit.MILLISECONDS, false);
+        assertThat(limiter.getLimit()).isEqualTo(18);
+    }
+
+    @Test
+    void startsFromHalfOfTheMaximum() {
+        assertThat(new AdaptiveLimiter(2, 50).getLimit()).isEqualTo(25);
+        assertThat(new AdaptiveLimiter(2, 3).getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotMistakeSlowerKindsOfRequestsForCongestion() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 50);
+        for (int i = 0; i < 500; i++) {
+            limiter.acquire();
+            limiter.release("GET json", 10, TimeUnit.MILLISECONDS, false);
+            limiter.acquire();
+            limiter.release("POST config.xml", 150, TimeUnit.MILLISECONDS, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(50);
+
+        // Job updates becoming much slower than they used to be is still a sign of congestion
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release("POST config.xml", 1500, TimeUnit.MILLISECONDS, false);
+        }
+        assertThat(limiter.getLimit()).isLessThan(50);
+    }
+
+    @Test
+    void overloadStatuses() {
+        assertThat(AdaptiveLimiter.isOverloaded(429)).isTrue();
+        assertThat(AdaptiveLimiter.isOverloaded(503)).isTrue();
+        assertThat(AdaptiveLimiter.isOverloaded(404)).isFalse();
+        assertThat(AdaptiveLimiter.isOverloaded(200)).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThatThrownBy(() -> new AdaptiveLimiter(0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveLimiter(10, 5)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensWhenTooManyRecentCallsFail() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(4, 0.5, 200, TimeUnit.MILLISECONDS);
+
+        assertThat(breaker.record(false)).isFalse();
+        assertThat(breaker.record(true)).isFalse();
+        assertThat(breaker.record(false)).isFalse();
+        assertThat(breaker.record(true)).isTrue();
+
+        long start = System.nanoTime();
+        breaker.awaitClosed();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void staysClosedWhileMostCallsSucceed() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 0.5, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 100; i++) {
+            assertThat(breaker.record(i % 4 == 0)).isFalse();
+        }
+    }
+}
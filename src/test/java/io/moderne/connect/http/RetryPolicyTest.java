@@ -0,0 +1,50 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryPolicyTest {
+
+    @Test
+    void delaysGrowExponentiallyUpToTheMaximum() {
+        RetryPolicy retryPolicy = new RetryPolicy(3, 100, 1_000);
+        for (int i = 0; i < 100; i++) {
+            assertThat(retryPolicy.delayMillis(0)).isBetween(0L, 100L);
+            assertThat(retryPolicy.delayMillis(2)).isBetween(0L, 400L);
+            assertThat(retryPolicy.delayMillis(10)).isBetween(0L, 1_000L);
+        }
+    }
+
+    @Test
+    void limitsTheNumberOfRetries() {
+        RetryPolicy retryPolicy = new RetryPolicy(2, 100, 1_000);
+        assertThat(retryPolicy.canRetry(0)).isTrue();
+        assertThat(retryPolicy.canRetry(1)).isTrue();
+        assertThat(retryPolicy.canRetry(2)).isFalse();
+    }
+
+    @Test
+    void onlyTransientStatusesAreRetried() {
+        assertThat(RetryPolicy.isTransient(502)).isTrue();
+        assertThat(RetryPolicy.isTransient(503)).isTrue();
+        assertThat(RetryPolicy.isTransient(429)).isTrue();
+        assertThat(RetryPolicy.isTransient(500)).isFalse();
+        assertThat(RetryPolicy.isTransient(404)).isFalse();
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckpointJournalTest {
+
+    @TempDir
+    Path checkpointDirectory;
+
+    @Test
+    void resumesFromThePreviousRun() throws Exception {
+        Path checkpoint = checkpointDirectory.resolve("checkpoint");
+        try (CheckpointJournal journal = new CheckpointJournal(checkpoint, false)) {
+            journal.applied(2, "moderne-ingest/a_main", "hash-a");
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(checkpoint, true)) {
+            assertThat(journal.isApplied(2, "moderne-ingest/a_main", "hash-a")).isTrue();
+            // The row moved or its configuration changed since it was applied
+            assertThat(journal.isApplied(3, "moderne-ingest/a_main", "hash-a")).isFalse();
+            assertThat(journal.isApplied(2, "moderne-ingest/a_main", "hash-b")).isFalse();
+            journal.applied(3, "moderne-ingest/b_main", "hash-b");
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(checkpoint, true)) {
+            assertThat(journal.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void startsOverWithoutResume() throws Exception {
+        Path checkpoint = checkpointDirectory.resolve("checkpoint");
+        try (CheckpointJournal journal = new CheckpointJournal(checkpoint, false)) {
+            journal.applied(2, "moderne-ingest/a_main", "hash-a");
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(checkpoint, false)) {
+            assertThat(journal.isApplied(2, "moderne-ingest/a_main", "hash-a")).isFalse();
+        }
+        try (CheckpointJournal journal = new CheckpointJournal(checkpoint, true)) {
+            assertThat(journal.size()).isZero();
+        }
+    }
+}
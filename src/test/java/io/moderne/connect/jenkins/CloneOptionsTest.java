@@ -0,0 +1,59 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CloneOptionsTest {
+
+    @Test
+    void defaultsConfigureNothing() {
+        assertThat(new CloneOptions(0, false, false, null).isDefault()).isTrue();
+        assertThat(new CloneOptions(0, false, false, null).withOverrides("").isDefault()).isTrue();
+    }
+
+    @Test
+    void rowOverridesTheDefaults() {
+        CloneOptions options = new CloneOptions(1, true, false, "/cache/default.git")
+                .withOverrides("depth=20; noTags=false; honorRefspec; reference=/cache/monorepo.git");
+
+        assertThat(options.isShallow()).isTrue();
+        assertThat(options.getDepth()).isEqualTo(20);
+        assertThat(options.isNoTags()).isFalse();
+        assertThat(options.isHonorRefspec()).isTrue();
+        assertThat(options.getReference()).isEqualTo("/cache/monorepo.git");
+    }
+
+    @Test
+    void fullCloneForOneRepository() {
+        CloneOptions options = new CloneOptions(1, false, false, "").withOverrides("depth=0");
+
+        assertThat(options.isShallow()).isFalse();
+        assertThat(options.isDefault()).isTrue();
+    }
+
+    @Test
+    void rejectsUnknownOptions() {
+        assertThatThrownBy(() -> new CloneOptions(0, false, false, "").withOverrides("sparse=true"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("sparse");
+        assertThatThrownBy(() -> new CloneOptions(0, false, false, "").withOverrides("depth=one"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrumbCacheTest {
+
+    @Test
+    void fetchesOnceForAllThreads() throws Exception {
+        AtomicInteger issued = new AtomicInteger();
+        CrumbCache crumbs = new CrumbCache(() -> "crumb-" + issued.incrementAndGet());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(crumbs::get));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo("crumb-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(issued).hasValue(1);
+    }
+
+    @Test
+    void refreshesOnlyRejectedCrumb() {
+        AtomicInteger issued = new AtomicInteger();
+        CrumbCache crumbs = new CrumbCache(() -> "crumb-" + issued.incrementAndGet());
+
+        String rejected = crumbs.get();
+        crumbs.invalidate(rejected);
+        String refreshed = crumbs.get();
+        assertThat(refreshed).isEqualTo("crumb-2");
+
+        // A late rejection of the old crumb must not discard the one that replaced it
+        crumbs.invalidate(rejected);
+        assertThat(crumbs.get()).isEqualTo("crumb-2");
+        assertThat(issued).hasValue(2);
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FolderInventoryTest {
+
+    @Test
+    void listsEachFolderOnce() {
+        List<String> listed = Collections.synchronizedList(new ArrayList<>());
+        FolderInventory inventory = new FolderInventory(folder -> {
+            listed.add(folder);
+            return new FolderInventory.Listing("moderne-ingest".equals(folder) ? Map.of("a_main", "", "b_main", "") : Map.of(), Set.of());
+        });
+
+        assertThat(inventory.contains("moderne-ingest", "a_main")).isTrue();
+        assertThat(inventory.contains("moderne-ingest", "c_main")).isFalse();
+        assertThat(inventory.contains("validate", "a_main")).isFalse();
+        assertThat(inventory.size("moderne-ingest")).isEqualTo(2);
+
+        assertThat(listed).containsExactly("moderne-ingest", "validate");
+    }
+
+    @Test
+    void listsOtherFoldersWhileOneIsBeingListed() throws Exception {
+        CountDownLatch slowListing = new CountDownLatch(1);
+        List<String> listed = Collections.synchronizedList(new ArrayList<>());
+        FolderInventory inventory = new FolderInventory(folder -> {
+            listed.add(folder);
+            if ("slow".equals(folder)) {
+                try {
+                    slowListing.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new FolderInventory.Listing(Map.of("a_main", ""), Set.of());
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> slow = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                slow.add(executor.submit(() -> inventory.contains("slow", "a_main")));
+            }
+            // Not held up by the listing still in flight, whichever folders share a bin of the map
+            for (int i = 0; i < 100; i++) {
+                String folder = "fast-" + i;
+                assertThat(executor.submit(() -> inventory.contains(folder, "a_main")).get(10, TimeUnit.SECONDS)).isTrue();
+            }
+            slowListing.countDown();
+            for (Future<Boolean> result : slow) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(listed.stream().filter("slow"::equals)).hasSize(1);
+    }
+
+    @Test
+    void listsAgainAfterAFailure() {
+        List<String> listed = Collections.synchronizedList(new ArrayList<>());
+        FolderInventory inventory = new FolderInventory(folder -> {
+            listed.add(folder);
+            if (listed.size() == 1) {
+                throw new RuntimeException("Unable to list the jobs in " + folder);
+            }
+            return new FolderInventory.Listing(Map.of("a_main", ""), Set.of());
+        });
+
+        assertThatThrownBy(() -> inventory.contains("moderne-ingest", "a_main")).hasMessageContaining("moderne-ingest");
+        assertThat(inventory.contains("moderne-ingest", "a_main")).isTrue();
+        assertThat(listed).containsExactly("moderne-ingest", "moderne-ingest");
+    }
+
+    @Test
+    void keepsTheSubfoldersOfTheListing() {
+        List<String> listed = Collections.synchronizedList(new ArrayList<>());
+        FolderInventory inventory = new FolderInventory(folder -> {
+            listed.add(folder);
+            return new FolderInventory.Listing(Map.of("a_main", ""), Set.of("shard-01", "shard-02"));
+        });
+
+        assertThat(inventory.subfolders("moderne-ingest")).containsExactly("shard-01", "shard-02");
+        assertThat(inventory.jobNames("moderne-ingest")).containsExactly("a_main");
+        assertThat(listed).containsExactly("moderne-ingest");
+    }
+
+    @Test
+    void tracksChangesMadeDuringTheRun() {
+        FolderInventory inventory = new FolderInventory(folder -> new FolderInventory.Listing(Map.of("a_main", ""), Set.of()));
+
+        inventory.added("moderne-ingest", "b_main", "fingerprint");
+        inventory.removed("moderne-ingest", "a_main");
+
+        assertThat(inventory.contains("moderne-ingest", "a_main")).isFalse();
+        assertThat(inventory.contains("moderne-ingest", "b_main")).isTrue();
+        assertThat(inventory.description("moderne-ingest", "b_main")).isEqualTo("fingerprint");
+        assertThat(inventory.jobNames("moderne-ingest")).containsExactly("b_main");
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FolderManagerTest {
+
+    @Test
+    void createsNestedFoldersOutermostFirst() {
+        List<String> created = new ArrayList<>();
+        FolderManager folders = new FolderManager("a"::equals, created::add);
+
+        folders.ensure("a/b/c");
+        folders.ensure("a/b/d");
+
+        assertThat(created).containsExactly("a/b", "a/b/c", "a/b/d");
+    }
+
+    @Test
+    void checksEachFolderOnceForAllThreads() throws Exception {
+        Map<String, Integer> checks = new ConcurrentHashMap<>();
+        List<String> created = Collections.synchronizedList(new ArrayList<>());
+        FolderManager folders = new FolderManager(folder -> {
+            checks.merge(folder, 1, Integer::sum);
+            return false;
+        }, created::add);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> folders.ensure("validate")));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(checks).containsExactly(Map.entry("validate", 1));
+        assertThat(created).containsExactly("validate");
+    }
+
+    @Test
+    void reportsFailureToEveryCaller() {
+        FolderManager folders = new FolderManager(folder -> false, folder -> {
+            throw new RuntimeException("Aborting. Error creating the folder " + folder);
+        });
+
+        assertThatThrownBy(() -> folders.ensure("a")).hasMessageContaining("folder a");
+        assertThatThrownBy(() -> folders.ensure("a/b")).hasMessageContaining("folder a");
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import kong.unirest.HeaderNames;
+import kong.unirest.HttpRequest;
+import kong.unirest.Unirest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JenkinsAuthenticatorTest {
+
+    @Test
+    void addsCrumbOnlyToStateChangingRequests() {
+        AtomicInteger issued = new AtomicInteger();
+        JenkinsAuthenticator authenticator = new JenkinsAuthenticator("admin", "secret",
+                new CrumbCache(() -> "crumb-" + issued.incrementAndGet()));
+
+        HttpRequest<?> get = Unirest.get("http://localhost:8080/api/json");
+        authenticator.authenticate(get);
+        assertThat(get.getHeaders().getFirst(HeaderNames.AUTHORIZATION)).startsWith("Basic ");
+        assertThat(get.getHeaders().containsKey(JenkinsAuthenticator.CRUMB_HEADER)).isFalse();
+        assertThat(issued).hasValue(0);
+
+        HttpRequest<?> post = Unirest.post("http://localhost:8080/createItem?name=job");
+        authenticator.authenticate(post);
+        assertThat(post.getHeaders().getFirst(JenkinsAuthenticator.CRUMB_HEADER)).isEqualTo("crumb-1");
+    }
+
+    @Test
+    void omitsCrumbWhenNotRequired() {
+        JenkinsAuthenticator authenticator = new JenkinsAuthenticator("admin", "api-token", null);
+
+        HttpRequest<?> post = Unirest.post("http://localhost:8080/createItem?name=job");
+        authenticator.authenticate(post);
+        assertThat(post.getHeaders().getFirst(HeaderNames.AUTHORIZATION)).startsWith("Basic ");
+        assertThat(post.getHeaders().containsKey(JenkinsAuthenticator.CRUMB_HEADER)).isFalse();
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobDslExportTest {
+
+    @TempDir
+    Path exportDirectory;
+
+    @Test
+    void definesFoldersOnceBeforeTheirJobs() throws Exception {
+        Path script = exportDirectory.resolve("jobs.groovy");
+        try (JobDslExport export = new JobDslExport(script)) {
+            export.job("moderne-ingest/shard-01", "a_main", "<project/>");
+            export.job("moderne-ingest/shard-01", "b_main", "<project/>");
+        }
+
+        String encoded = Base64.getEncoder().encodeToString("<project/>".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(Files.readAllBytes(script), StandardCharsets.UTF_8))
+                .startsWith("// Generated by mod-connect")
+                .endsWith("class Jobs1 {\n" +
+                          "    static void define(dsl) {\n" +
+                          "        dsl.folder('moderne-ingest')\n" +
+                          "        dsl.folder('moderne-ingest/shard-01')\n" +
+                          "        dsl.fromXml(dsl.freeStyleJob('moderne-ingest/shard-01/a_main'), '" + encoded + "')\n" +
+                          "        dsl.fromXml(dsl.freeStyleJob('moderne-ingest/shard-01/b_main'), '" + encoded + "')\n" +
+                          "    }\n" +
+                          "}\n" +
+                          "Jobs1.define(this)\n");
+    }
+
+    @Test
+    void definesPipelineJobsForFlowDefinitions() throws Exception {
+        String pipeline = "<?xml version='1.1' encoding='UTF-8'?>\n<flow-definition plugin=\"workflow-job@1308\"/>";
+        Path script = exportDirectory.resolve("jobs.groovy");
+        try (JobDslExport export = new JobDslExport(script)) {
+            export.job("moderne-ingest", "ingest", pipeline);
+        }
+
+        String encoded = Base64.getEncoder().encodeToString(pipeline.getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(Files.readAllBytes(script), StandardCharsets.UTF_8))
+                .endsWith("        dsl.fromXml(dsl.pipelineJob('moderne-ingest/ingest'), '" + encoded + "')\n" +
+                          "    }\n" +
+                          "}\n" +
+                          "Jobs1.define(this)\n");
+    }
+
+    @Test
+    void splitsJobsIntoClasses() throws Exception {
+        Path script = exportDirectory.resolve("jobs.groovy");
+        try (JobDslExport export = new JobDslExport(script, 2)) {
+            export.job("", "a_main", "<project/>");
+            export.job("", "b_main", "<project/>");
+            export.job("", "c_main", "<project/>");
+        }
+
+        assertThat(new String(Files.readAllBytes(script), StandardCharsets.UTF_8))
+                .contains("}\nJobs1.define(this)\nclass Jobs2 {\n    static void define(dsl) {\n        dsl.fromXml(dsl.freeStyleJob('c_main'), ")
+                .endsWith("}\nJobs2.define(this)\n")
+                .doesNotContain("Jobs3");
+    }
+
+    @Test
+    void definesCustomConfigFile() throws Exception {
+        Path script = exportDirectory.resolve("jobs.groovy");
+        try (JobDslExport export = new JobDslExport(script)) {
+            export.customConfig("moderne-ingest", "ingestion script", "#!/bin/sh");
+        }
+
+        String encoded = Base64.getEncoder().encodeToString("#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(Files.readAllBytes(script), StandardCharsets.UTF_8))
+                .endsWith("configFiles {\n" +
+                          "    customConfig {\n" +
+                          "        id('moderne-ingest')\n" +
+                          "        name('ingestion script')\n" +
+                          "        content(decode('" + encoded + "'))\n" +
+                          "    }\n" +
+                          "}\n");
+    }
+
+    @Test
+    void wrapsScriptInConfigurationAsCode() throws Exception {
+        Path yaml = exportDirectory.resolve("jobs.yaml");
+        try (JobDslExport export = new JobDslExport(yaml)) {
+            export.job("", "a_main", "<project/>");
+        }
+
+        assertThat(new String(Files.readAllBytes(yaml), StandardCharsets.UTF_8))
+                .startsWith("jobs:\n  - script: |\n      // Generated by mod-connect")
+                .contains("\n              dsl.fromXml(dsl.freeStyleJob('a_main'), ")
+                .endsWith("\n      Jobs1.define(this)\n");
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobFingerprintTest {
+
+    @Test
+    void embedsFingerprintInDescription() {
+        String config = "<project>\n  <description></description>\n  <disabled>false</disabled>\n</project>";
+        String fingerprint = JobFingerprint.of(config);
+
+        String embedded = JobFingerprint.embed(config, fingerprint);
+
+        assertThat(embedded).contains("<description>" + JobFingerprint.describe(fingerprint) + "</description>");
+        assertThat(JobFingerprint.matches(JobFingerprint.describe(fingerprint), fingerprint)).isTrue();
+    }
+
+    @Test
+    void changedConfigurationDoesNotMatch() {
+        String before = JobFingerprint.of("<project><spec>H H * * *</spec></project>");
+        String after = JobFingerprint.of("<project><spec>H 2 * * *</spec></project>");
+
+        assertThat(after).isNotEqualTo(before);
+        assertThat(JobFingerprint.matches(JobFingerprint.describe(before), after)).isFalse();
+        assertThat(JobFingerprint.matches("", after)).isFalse();
+        assertThat(JobFingerprint.matches(null, after)).isFalse();
+    }
+}
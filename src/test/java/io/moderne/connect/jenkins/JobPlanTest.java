@@ -0,0 +1,90 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobPlanTest {
+
+    @TempDir
+    Path planDirectory;
+
+    @Test
+    void writesJobsSummaryAndInventory() throws Exception {
+        try (JobPlan plan = new JobPlan(planDirectory, null)) {
+            assertThat(plan.folderExists("moderne-ingest")).isFalse();
+            plan.folder("moderne-ingest");
+            plan.job("moderne-ingest", "a_main", "created", "<project/>", "fingerprint-a");
+            assertThat(plan.getCounts()).isEqualTo(Map.of("created", 2));
+        }
+
+        assertThat(read(planDirectory.resolve("moderne-ingest/a_main/config.xml"))).isEqualTo("<project/>");
+        assertThat(read(planDirectory.resolve(JobPlan.SUMMARY)))
+                .isEqualTo("created\tmoderne-ingest/\ncreated\tmoderne-ingest/a_main\n");
+        assertThat(read(planDirectory.resolve(JobPlan.INVENTORY)))
+                .isEqualTo("moderne-ingest\ta_main\tfingerprint-a\n");
+    }
+
+    @Test
+    void startsFromThePreviousInventory() throws Exception {
+        Path inventory = planDirectory.resolve("previous.tsv");
+        Files.write(inventory, "moderne-ingest/shard-01\ta_main\tfingerprint-a\nmoderne-ingest/shard-01\tb_main\t\n"
+                .getBytes(StandardCharsets.UTF_8));
+
+        try (JobPlan plan = new JobPlan(planDirectory.resolve("plan"), inventory)) {
+            assertThat(plan.folderExists("moderne-ingest")).isTrue();
+            assertThat(plan.listJobs("moderne-ingest/shard-01").getJobs()).containsOnlyKeys("a_main", "b_main");
+            assertThat(plan.listJobs("moderne-ingest").getFolders()).containsExactly("shard-01");
+            plan.deleted("moderne-ingest/shard-01", "b_main");
+        }
+
+        assertThat(read(planDirectory.resolve("plan").resolve(JobPlan.INVENTORY)))
+                .isEqualTo("moderne-ingest/shard-01\ta_main\tfingerprint-a\n");
+    }
+
+    @Test
+    void startsFromTheJobsThatTheControllerHolds() throws Exception {
+        Map<String, FolderInventory.Listing> controller = Map.of(
+                "moderne-ingest", new FolderInventory.Listing(Map.of(), Set.of("shard-01")),
+                "moderne-ingest/shard-01", new FolderInventory.Listing(Map.of("a_main", "fingerprint-a", "b_main", ""), Set.of()));
+
+        try (JobPlan plan = new JobPlan(planDirectory, null, folderPath ->
+                controller.getOrDefault(folderPath, new FolderInventory.Listing(Map.of(), Set.of())))) {
+            assertThat(plan.listJobs("moderne-ingest").getFolders()).containsExactly("shard-01");
+            assertThat(plan.listJobs("moderne-ingest/shard-01").getJobs())
+                    .isEqualTo(Map.of("a_main", "fingerprint-a", "b_main", ""));
+            plan.job("moderne-ingest/shard-01", "c_main", "created", "<project/>", "fingerprint-c");
+            plan.deleted("moderne-ingest/shard-01", "b_main");
+        }
+
+        // The inventory records what the controller would hold after the plan is applied
+        assertThat(read(planDirectory.resolve(JobPlan.INVENTORY)))
+                .isEqualTo("moderne-ingest/shard-01\ta_main\tfingerprint-a\nmoderne-ingest/shard-01\tc_main\tfingerprint-c\n");
+    }
+
+    private static String read(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
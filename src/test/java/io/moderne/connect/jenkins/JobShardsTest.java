@@ -0,0 +1,58 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobShardsTest {
+
+    @Test
+    void keepsJobsInParentFolderWithoutSharding() {
+        JobShards shards = new JobShards(JobShards.Strategy.NONE, 0);
+        assertThat(shards.folder("moderne-ingest", "openrewrite/rewrite", "openrewrite_rewrite_main"))
+                .isEqualTo("moderne-ingest");
+    }
+
+    @Test
+    void shardsByOrganization() {
+        JobShards shards = new JobShards(JobShards.Strategy.ORG, 0);
+        assertThat(shards.folder("moderne-ingest", "openrewrite/rewrite", "openrewrite_rewrite_main"))
+                .isEqualTo("moderne-ingest/openrewrite");
+        assertThat(shards.folder("", "group/subgroup/repo", "group_subgroup_repo_main"))
+                .isEqualTo("group");
+    }
+
+    @Test
+    void shardsByStableHash() {
+        JobShards shards = new JobShards(JobShards.Strategy.HASH, 16);
+        String folder = shards.folder("moderne-ingest", "openrewrite/rewrite", "openrewrite_rewrite_main");
+        assertThat(folder).matches("moderne-ingest/shard-\\d\\d");
+        assertThat(new JobShards(JobShards.Strategy.HASH, 16)
+                .folder("moderne-ingest", "openrewrite/rewrite", "openrewrite_rewrite_main"))
+                .isEqualTo(folder);
+
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            used.add(shards.folder("", "org/repo" + i, "org_repo" + i + "_main"));
+        }
+        assertThat(used).hasSize(16);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PluginCacheTest {
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void reusesPluginsWithinTtl() {
+        AtomicInteger fetched = new AtomicInteger();
+        PluginCache cache = new PluginCache(cacheDirectory, 10, TimeUnit.MINUTES);
+
+        assertThat(cache.get("https://jenkins.example.com/", () -> "plugins-" + fetched.incrementAndGet()))
+                .isEqualTo("plugins-1");
+        assertThat(cache.get("https://jenkins.example.com", () -> "plugins-" + fetched.incrementAndGet()))
+                .isEqualTo("plugins-1");
+        assertThat(cache.get("https://other.example.com", () -> "plugins-" + fetched.incrementAndGet()))
+                .isEqualTo("plugins-2");
+    }
+
+    @Test
+    void fetchesAgainOnceExpired() throws Exception {
+        AtomicInteger fetched = new AtomicInteger();
+        PluginCache cache = new PluginCache(cacheDirectory, 10, TimeUnit.MINUTES);
+        String controllerUrl = "https://jenkins.example.com";
+
+        cache.get(controllerUrl, () -> "plugins-" + fetched.incrementAndGet());
+        Files.setLastModifiedTime(cache.file(controllerUrl),
+                FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(11)));
+
+        assertThat(cache.get(controllerUrl, () -> "plugins-" + fetched.incrementAndGet())).isEqualTo("plugins-2");
+    }
+}
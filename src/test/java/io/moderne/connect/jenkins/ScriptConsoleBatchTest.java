@@ -0,0 +1,66 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScriptConsoleBatchTest {
+
+    @Test
+    void encodesEveryValue() {
+        ScriptConsoleBatch batch = new ScriptConsoleBatch();
+        batch.add("moderne-ingest", "openrewrite_rewrite_main", "<project>'''</project>");
+
+        String script = batch.script();
+        assertThat(script)
+                .contains("['" + encode("moderne-ingest") + "', '" + encode("openrewrite_rewrite_main") +
+                          "', '" + encode("<project>'''</project>") + "'],")
+                .doesNotContain("<project>");
+    }
+
+    @Test
+    void reportsEachJob() {
+        ScriptConsoleBatch batch = new ScriptConsoleBatch();
+        batch.add("moderne-ingest", "a_main", "<project/>");
+        batch.add("moderne-ingest", "b_main", "<project/>");
+        batch.add("moderne-ingest", "c_main", "<project/>");
+        batch.add("moderne-ingest", "d_main", "<project/>");
+
+        List<ScriptConsoleBatch.Result> results = batch.results(
+                "0\tcreated\n" +
+                "1\tupdated\n" +
+                "2\tfailed\tThe folder moderne-ingest does not exist\n" +
+                "Result: [...]\n");
+
+        assertThat(results).hasSize(4);
+        assertThat(results.get(0).getVerb()).isEqualTo("created");
+        assertThat(results.get(1).getVerb()).isEqualTo("updated");
+        assertThat(results.get(2).isSuccess()).isFalse();
+        assertThat(results.get(2).getError()).isEqualTo("The folder moderne-ingest does not exist");
+        assertThat(results.get(3).isSuccess()).isFalse();
+        assertThat(results.get(3).getJobName()).isEqualTo("d_main");
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.jenkins;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateManifestTest {
+
+    @TempDir
+    Path manifestDirectory;
+
+    @Test
+    void tracksAddedChangedAndRemovedJobs() throws Exception {
+        Path file = manifestDirectory.resolve("manifest.tsv");
+        StateManifest first = new StateManifest(file);
+        first.seen("moderne-ingest/a_main");
+        first.applied("moderne-ingest/a_main", "hash-a");
+        first.seen("moderne-ingest/b_main");
+        first.applied("moderne-ingest/b_main", "hash-b");
+        first.save(true);
+
+        StateManifest second = new StateManifest(file);
+        assertThat(second.isApplied("moderne-ingest/a_main", "hash-a")).isTrue();
+        assertThat(second.isApplied("moderne-ingest/a_main", "hash-changed")).isFalse();
+        assertThat(second.isApplied("moderne-ingest/c_main", "hash-c")).isFalse();
+
+        second.seen("moderne-ingest/a_main");
+        second.seen("moderne-ingest/c_main");
+        second.applied("moderne-ingest/c_main", "hash-c");
+        assertThat(second.removed()).containsExactly("moderne-ingest/b_main");
+        second.save(true);
+
+        StateManifest third = new StateManifest(file);
+        assertThat(third.isApplied("moderne-ingest/a_main", "hash-a")).isTrue();
+        assertThat(third.isApplied("moderne-ingest/b_main", "hash-b")).isFalse();
+        assertThat(third.isApplied("moderne-ingest/c_main", "hash-c")).isTrue();
+    }
+
+    @Test
+    void keepsUnreadRowsOfAnInterruptedRun() throws Exception {
+        Path file = manifestDirectory.resolve("manifest.tsv");
+        StateManifest first = new StateManifest(file);
+        first.applied("moderne-ingest/a_main", "hash-a");
+        first.applied("moderne-ingest/b_main", "hash-b");
+        first.save(true);
+
+        StateManifest interrupted = new StateManifest(file);
+        interrupted.seen("moderne-ingest/a_main");
+        interrupted.applied("moderne-ingest/a_main", "hash-changed");
+        interrupted.save(false);
+
+        StateManifest resumed = new StateManifest(file);
+        assertThat(resumed.isApplied("moderne-ingest/a_main", "hash-changed")).isTrue();
+        assertThat(resumed.isApplied("moderne-ingest/b_main", "hash-b")).isTrue();
+    }
+}
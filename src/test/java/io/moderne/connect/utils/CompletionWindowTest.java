@@ -0,0 +1,68 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompletionWindowTest {
+
+    @Test
+    void neverRunsAheadOfTheWindow() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletionWindow window = new CompletionWindow(executor, 8);
+            AtomicInteger outstanding = new AtomicInteger();
+            AtomicInteger maxOutstanding = new AtomicInteger();
+
+            for (int i = 0; i < 200; i++) {
+                maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+                window.submit(() -> {
+                    Thread.sleep(1);
+                    outstanding.decrementAndGet();
+                    return true;
+                });
+            }
+
+            assertThat(window.awaitFailures()).isZero();
+            assertThat(maxOutstanding.get()).isLessThanOrEqualTo(9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void countsFailedAndThrowingTasks() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletionWindow window = new CompletionWindow(executor, 2);
+            window.submit(() -> true);
+            window.submit(() -> false);
+            window.submit(() -> {
+                throw new IllegalStateException("boom");
+            });
+
+            assertThat(window.awaitFailures()).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.moderne.connect.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkerExecutorsTest {
+
+    @Test
+    void runsTasksWhateverTheRuntime() throws Exception {
+        ExecutorService executor = WorkerExecutors.newWorkerExecutor(2, true);
+        try {
+            assertThat(executor.submit(() -> "done").get()).isEqualTo("done");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void platformThreadsWhenVirtualThreadsAreNotWanted() throws Exception {
+        ExecutorService executor = WorkerExecutors.newWorkerExecutor(2, false);
+        try {
+            String threadName = executor.submit(() -> Thread.currentThread().getName()).get();
+            assertThat(threadName).startsWith("pool-");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}